@@ -0,0 +1,119 @@
+import javax.swing.*;
+import java.awt.*;
+import java.time.LocalDate;
+
+/**
+ * 活跃统计图（数据来自 ActivityStats 的汇总）：
+ *   上：最近 N 天每天的活跃时长柱状图（深色 = 键鼠活跃，浅色 = 仅视频判定活跃，灰线 = 宠物运行时长）
+ *   下：最近几天 × 24 小时的活跃热力图
+ */
+public final class ActivityChart extends JComponent {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Color RUN    = new Color(0xBDBDBD);
+    private static final Color INPUT  = new Color(0x2E7D32);
+    private static final Color ACTIVE = new Color(0x81C784);
+    private static final int PAD = 44;
+
+    private ActivityStats.Bucket[] days = new ActivityStats.Bucket[0];
+    private ActivityStats.Bucket[] hours = new ActivityStats.Bucket[0];   // 天数 × 24，下标 0 最早
+
+    public ActivityChart() {
+        setPreferredSize(new Dimension(760, 420));
+        setBackground(Color.WHITE);
+        setOpaque(true);
+    }
+
+    public void setData(ActivityStats.Bucket[] days, ActivityStats.Bucket[] hours) {
+        this.days = days;
+        this.hours = hours;
+        repaint();
+    }
+
+    @Override
+    protected void paintComponent(Graphics g0) {
+        Graphics2D g = (Graphics2D) g0.create();
+        g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        g.setColor(getBackground());
+        g.fillRect(0, 0, getWidth(), getHeight());
+        int split = (int) (getHeight() * 0.58);
+        paintDays(g, new Rectangle(PAD, 20, getWidth() - PAD - 12, split - 20 - 22));
+        paintHeat(g, new Rectangle(PAD, split + 18, getWidth() - PAD - 12, getHeight() - split - 18 - 20));
+        g.dispose();
+    }
+
+    private void paintDays(Graphics2D g, Rectangle r) {
+        g.setColor(Color.DARK_GRAY);
+        g.drawString("每日活跃时长（小时）", r.x, r.y - 6);
+        int n = days.length;
+        if (n == 0) return;
+        int maxMin = 60;
+        for (ActivityStats.Bucket b : days) maxMin = Math.max(maxMin, b.minutes);
+        int maxH = (maxMin + 59) / 60;
+        FontMetrics fm = g.getFontMetrics();
+        for (int h = 0; h <= maxH; h += Math.max(1, maxH / 4)) {
+            int y = r.y + r.height - (int) ((long) h * 60 * r.height / (maxH * 60));
+            g.setColor(new Color(0xEEEEEE));
+            g.drawLine(r.x, y, r.x + r.width, y);
+            g.setColor(Color.GRAY);
+            g.drawString(String.valueOf(h), r.x - 6 - fm.stringWidth(String.valueOf(h)), y + fm.getAscent() / 2);
+        }
+        double colW = (double) r.width / n;
+        int barW = Math.max(1, (int) (colW * 0.7));
+        LocalDate first = LocalDate.ofEpochDay(days[0].key);
+        for (int i = 0; i < n; i++) {
+            ActivityStats.Bucket b = days[i];
+            int x = r.x + (int) (i * colW + (colW - barW) / 2);
+            int hRun = b.minutes * r.height / (maxH * 60);
+            int hAct = b.active() * r.height / (maxH * 60);
+            int hIn = Math.min(b.input(), b.active()) * r.height / (maxH * 60);
+            int base = r.y + r.height;
+            g.setColor(ACTIVE);
+            g.fillRect(x, base - hAct, barW, hAct);
+            g.setColor(INPUT);
+            g.fillRect(x, base - hIn, barW, hIn);
+            if (hRun > 0) {
+                g.setColor(RUN);
+                g.drawLine(x, base - hRun, x + barW, base - hRun);
+            }
+            int step = n <= 14 ? 1 : n <= 31 ? 7 : 14;
+            if ((n - 1 - i) % step == 0) {
+                LocalDate d = first.plusDays(i);
+                String s = d.getMonthValue() + "/" + d.getDayOfMonth();
+                g.setColor(Color.GRAY);
+                g.drawString(s, x + barW / 2 - fm.stringWidth(s) / 2, base + fm.getAscent() + 2);
+            }
+        }
+    }
+
+    private void paintHeat(Graphics2D g, Rectangle r) {
+        g.setColor(Color.DARK_GRAY);
+        g.drawString("最近 " + hours.length / 24 + " 天 × 24 小时", r.x, r.y - 6);
+        if (hours.length == 0) return;
+        FontMetrics fm = g.getFontMetrics();
+        int rows = hours.length / 24;                        // 整天对齐，见 ActivityStats.loadHourGrid
+        long firstDay = Math.floorDiv(hours[0].key, 24);
+        double cw = (double) r.width / 24, ch = (double) r.height / rows;
+        for (int i = 0; i < hours.length; i++) {
+            ActivityStats.Bucket b = hours[i];
+            int row = (int) (Math.floorDiv(b.key, 24) - firstDay);
+            int col = Math.floorMod(b.key, 24);
+            float v = Math.min(1f, b.active() / 60f);
+            Color c = b.minutes == 0 ? new Color(0xF5F5F5)
+                    : new Color(1f - 0.8f * v, 1f - 0.5f * v, 1f - 0.8f * v);
+            g.setColor(c);
+            g.fillRect(r.x + (int) (col * cw) + 1, r.y + (int) (row * ch) + 1, (int) cw - 2, (int) ch - 2);
+        }
+        g.setColor(Color.GRAY);
+        for (int row = 0; row < rows; row++) {
+            LocalDate d = LocalDate.ofEpochDay(firstDay + row);
+            String s = d.getMonthValue() + "/" + d.getDayOfMonth();
+            g.drawString(s, r.x - 4 - fm.stringWidth(s), r.y + (int) ((row + 0.5) * ch) + fm.getAscent() / 2 - 1);
+        }
+        for (int h = 0; h < 24; h += 3) {
+            g.drawString(String.valueOf(h), r.x + (int) (h * cw + cw / 2) - fm.stringWidth(String.valueOf(h)) / 2,
+                    r.y + r.height + fm.getAscent() + 2);
+        }
+    }
+}
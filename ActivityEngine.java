@@ -0,0 +1,90 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * “用户是否在用电脑”的判定引擎。每个 ActivitySource 在共享的 BackgroundScheduler 上按自己的周期采样，
+ * 任一来源有新值就重算一次并发布新的 ActivitySnapshot（volatile 引用，读的一方不加锁）。
+ * tick 每帧只读 snapshot()，不做任何原生调用或计算。
+ */
+public final class ActivityEngine {
+
+    private final long activeIdleMs;
+    private final List<ActivitySource> sources = new ArrayList<>();
+    private final Map<ActivitySource, ScheduledFuture<?>> tasks = new HashMap<>();
+    private final Map<String, Object> values = new HashMap<>();
+    private volatile ActivitySnapshot snapshot = ActivitySnapshot.EMPTY;
+    private volatile boolean useFullscreen = true;
+    private volatile boolean useAudio = true;
+    private boolean running = false;
+
+    /** activeIdleMs：键鼠空闲不超过这么久就算活跃 */
+    public ActivityEngine(long activeIdleMs) { this.activeIdleMs = activeIdleMs; }
+
+    public synchronized void addSource(ActivitySource s) {
+        sources.add(s);
+        if (running) schedule(s);
+    }
+
+    public synchronized void removeSource(ActivitySource s) {
+        sources.remove(s);
+        ScheduledFuture<?> f = tasks.remove(s);
+        if (f != null) f.cancel(false);
+    }
+
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+        for (ActivitySource s : sources) schedule(s);
+    }
+
+    public synchronized void stop() {
+        running = false;
+        for (ScheduledFuture<?> f : tasks.values()) f.cancel(false);
+        tasks.clear();
+    }
+
+    private void schedule(ActivitySource s) {
+        tasks.put(s, BackgroundScheduler.every(s.name(), s.periodMs(), () -> {
+            Map<String, Object> out = new HashMap<>(4);
+            s.sample(out);
+            update(out);
+        }));
+    }
+
+    private synchronized void update(Map<String, Object> out) {
+        values.putAll(out);
+        publish();
+    }
+
+    // 在锁内重算：读 values、算判定、换引用
+    private void publish() {
+        long idleMs = ((Number) values.getOrDefault(ActivitySource.KEY_INPUT_IDLE_MS, 0L)).longValue();
+        boolean byInput = idleMs <= activeIdleMs;
+        boolean fullscreen = useFullscreen && Boolean.TRUE.equals(values.get(ActivitySource.KEY_FULLSCREEN));
+        boolean audioAvail = Boolean.TRUE.equals(values.get(ActivitySource.KEY_AUDIO_AVAIL));
+        boolean audioActive = useAudio && audioAvail && Boolean.TRUE.equals(values.get(ActivitySource.KEY_AUDIO_ACTIVE));
+        boolean custom = false;
+        for (ActivitySource s : sources) {
+            if (s.impliesActive(values)) { custom = true; break; }
+        }
+        // 若有音频探测能力：全屏 && 音频 才判定活跃；若无音频探测：全屏单独成立
+        boolean active = byInput || (fullscreen && (audioAvail ? audioActive : true)) || custom;
+        snapshot = new ActivitySnapshot(values, idleMs, byInput, fullscreen, audioAvail, audioActive, custom, active);
+    }
+
+    public ActivitySnapshot snapshot() { return snapshot; }
+
+    public synchronized void setUseFullscreen(boolean on) { useFullscreen = on; publish(); }
+    public synchronized void setUseAudio(boolean on) { useAudio = on; publish(); }
+    public boolean isUseFullscreen() { return useFullscreen; }
+    public boolean isUseAudio() { return useAudio; }
+
+    public synchronized List<String> sourceNames() {
+        List<String> names = new ArrayList<>();
+        for (ActivitySource s : sources) names.add(s.name());
+        return names;
+    }
+}
@@ -0,0 +1,103 @@
+/**
+ * 把一串能量值变成稳定的“有声 / 无声”判断：
+ *   1) 指数平滑（时间常数 tauMs，按实际间隔算衰减，采样不均匀也成立）
+ *   2) 双门限：平滑值 ≥ onLevel 持续 attackMs 才打开；打开后低于 offLevel 才开始计时
+ *   3) 最短保持：低于 offLevel 连续 holdMs 才关闭
+ * 只在一个线程（音频采样线程）里 update；结果放在 volatile 里，其它线程随便读，不加锁。
+ * 内存固定，不保存历史样本。
+ */
+public final class ActivityGate {
+
+    /** 门限参数；-Dpet.audio.on / off / tauMs / attackMs / holdMs 可改 */
+    public static final class Params {
+        public double onLevel  = 0.010;
+        public double offLevel = 0.005;
+        public long   tauMs    = 500;
+        public long   attackMs = 300;
+        public long   holdMs   = 5000;
+
+        public static Params fromSystemProperties() {
+            Params p = new Params();
+            p.onLevel  = doubleProp("pet.audio.on", p.onLevel);
+            p.offLevel = Math.min(p.onLevel, doubleProp("pet.audio.off", p.offLevel));
+            p.tauMs    = Long.getLong("pet.audio.tauMs", p.tauMs);
+            p.attackMs = Long.getLong("pet.audio.attackMs", p.attackMs);
+            p.holdMs   = Long.getLong("pet.audio.holdMs", p.holdMs);
+            return p;
+        }
+
+        private static double doubleProp(String key, double def) {
+            String v = System.getProperty(key);
+            if (v == null) return def;
+            try {
+                return Double.parseDouble(v.trim());
+            } catch (NumberFormatException e) {
+                System.err.println("[ActivityGate] 配置无效 " + key + "=" + v);
+                return def;
+            }
+        }
+    }
+
+    private final Params p;
+
+    // —— 采样线程私有 —— //
+    private double ema = 0.0;
+    private long lastMs = Long.MIN_VALUE;
+    private long aboveSinceMs = -1;      // 关闭状态下，平滑值连续 ≥ onLevel 的起点
+    private long lastLoudMs;             // 打开状态下，最近一次 ≥ offLevel 的时刻
+
+    // —— 发布 —— //
+    private volatile boolean active = false;
+    private volatile double smoothed = 0.0;
+    private volatile long transitions = 0;
+
+    public ActivityGate(Params p) { this.p = p; }
+
+    /** 喂一个能量值（0..1）；nowMs 用单调时钟 */
+    public void update(double level, long nowMs) {
+        if (lastMs == Long.MIN_VALUE) {
+            ema = level;
+        } else {
+            long dt = Math.max(0, nowMs - lastMs);
+            double a = p.tauMs <= 0 ? 1.0 : 1.0 - Math.exp(-(double) dt / p.tauMs);
+            ema += a * (level - ema);
+        }
+        lastMs = nowMs;
+        smoothed = ema;
+
+        if (!active) {
+            if (ema >= p.onLevel) {
+                if (aboveSinceMs < 0) aboveSinceMs = nowMs;
+                if (nowMs - aboveSinceMs >= p.attackMs) {
+                    active = true;
+                    lastLoudMs = nowMs;
+                    transitions++;
+                }
+            } else {
+                aboveSinceMs = -1;
+            }
+        } else {
+            if (ema >= p.offLevel) {
+                lastLoudMs = nowMs;
+            } else if (nowMs - lastLoudMs >= p.holdMs) {
+                active = false;
+                aboveSinceMs = -1;
+                transitions++;
+            }
+        }
+    }
+
+    /** 采样停止时调用：回到初始的无声状态 */
+    public void reset() {
+        ema = 0.0;
+        lastMs = Long.MIN_VALUE;
+        aboveSinceMs = -1;
+        smoothed = 0.0;
+        active = false;
+    }
+
+    public boolean isActive()    { return active; }
+    public double  getSmoothed() { return smoothed; }
+    /** 开关切换的累计次数（看是否还在抖） */
+    public long    getTransitions() { return transitions; }
+}
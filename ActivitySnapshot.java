@@ -0,0 +1,56 @@
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * ActivityEngine 某一时刻的判定结果（不可变）。tick 和面板只读 engine.snapshot() 拿到的引用，
+ * 不会读到写了一半的数据。各来源的原始采样值按 key 放在 values 里（见 ActivitySource）。
+ */
+public final class ActivitySnapshot {
+
+    public static final ActivitySnapshot EMPTY =
+            new ActivitySnapshot(Collections.emptyMap(), 0, false, false, false, false, false, false);
+
+    private final Map<String, Object> values;
+    private final long inputIdleMs;
+    private final boolean userActiveByInput;
+    private final boolean fullscreen;
+    private final boolean audioAvailable;
+    private final boolean audioActive;
+    private final boolean customActive;
+    private final boolean userActive;
+    private final long createdNanos = System.nanoTime();
+
+    ActivitySnapshot(Map<String, Object> values, long inputIdleMs, boolean userActiveByInput,
+                     boolean fullscreen, boolean audioAvailable, boolean audioActive,
+                     boolean customActive, boolean userActive) {
+        this.values = Collections.unmodifiableMap(new HashMap<>(values));
+        this.inputIdleMs = inputIdleMs;
+        this.userActiveByInput = userActiveByInput;
+        this.fullscreen = fullscreen;
+        this.audioAvailable = audioAvailable;
+        this.audioActive = audioActive;
+        this.customActive = customActive;
+        this.userActive = userActive;
+    }
+
+    public long    inputIdleMs()       { return inputIdleMs; }
+    public boolean userActiveByInput() { return userActiveByInput; }
+    public boolean fullscreen()        { return fullscreen; }
+    public boolean audioAvailable()    { return audioAvailable; }
+    public boolean audioActive()       { return audioActive; }
+    /** 有自定义来源投了“活跃”票 */
+    public boolean customActive()      { return customActive; }
+    /** 最终判定：键鼠活跃，或全屏（有音频探测时还要在放声音），或自定义来源认为活跃 */
+    public boolean userActive()        { return userActive; }
+    public long    createdNanos()      { return createdNanos; }
+
+    /** 某个来源的原始值；没有就返回 def */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String key, T def) {
+        Object v = values.get(key);
+        return v == null ? def : (T) v;
+    }
+
+    public Map<String, Object> values() { return values; }
+}
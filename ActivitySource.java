@@ -0,0 +1,119 @@
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.Insets;
+import java.awt.Rectangle;
+import java.awt.Toolkit;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * ActivityEngine 的一个采样来源。每个来源按自己的周期在 BackgroundScheduler 上被调用，
+ * 把采到的值按 key 写进 out（可以写多个），引擎随后重算并发布新的 ActivitySnapshot。
+ * sample() 在后台线程里跑，应当很快返回。
+ *
+ * 自定义来源如果也想参与“用户是否活跃”的判定，覆盖 impliesActive 即可，不用改 DesktopPet：
+ *   pet.getActivityEngine().addSource(mySource);
+ */
+public interface ActivitySource {
+
+    String KEY_INPUT_IDLE_MS = "input.idleMs";
+    String KEY_FULLSCREEN    = "fullscreen";
+    String KEY_AUDIO_AVAIL   = "audio.available";
+    String KEY_AUDIO_ACTIVE  = "audio.active";
+    String KEY_AUDIO_LEVEL   = "audio.level";
+    String KEY_CPU_LOAD      = "cpu.load";
+
+    String name();
+
+    long periodMs();
+
+    void sample(Map<String, Object> out);
+
+    /** 根据当前所有采样值，这个来源是否认为用户正在使用电脑（内置来源由引擎统一判定，返回 false） */
+    default boolean impliesActive(Map<String, Object> values) { return false; }
+
+    // ===== 内置来源 =====
+
+    /** 系统级键鼠空闲时间 */
+    final class InputIdle implements ActivitySource {
+        private final IdleTimeProvider provider;
+
+        public InputIdle(IdleTimeProvider provider) { this.provider = provider; }
+
+        @Override public String name() { return "input:" + provider.name(); }
+        @Override public long periodMs() { return 500; }
+
+        @Override public void sample(Map<String, Object> out) {
+            long ms = provider.idleMillis();
+            out.put(KEY_INPUT_IDLE_MS, ms < 0 ? 0L : ms);       // 取不到就当作刚有输入
+        }
+    }
+
+    /** 前台窗口是否全屏；enabled 为假时不做原生调用 */
+    final class Fullscreen implements ActivitySource {
+        private final ForegroundWindowProvider provider;
+        private final Supplier<GraphicsConfiguration> screen;
+        private final BooleanSupplier enabled;
+
+        public Fullscreen(ForegroundWindowProvider provider, Supplier<GraphicsConfiguration> screen,
+                          BooleanSupplier enabled) {
+            this.provider = provider;
+            this.screen = screen;
+            this.enabled = enabled;
+        }
+
+        @Override public String name() { return "fullscreen:" + provider.name(); }
+        @Override public long periodMs() { return 1000; }
+
+        @Override public void sample(Map<String, Object> out) {
+            if (!enabled.getAsBoolean()) { out.put(KEY_FULLSCREEN, false); return; }
+            Rectangle fg = provider.foregroundBounds();
+            GraphicsConfiguration gc = screen.get();
+            if (gc == null) {
+                gc = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration();
+            }
+            Rectangle sb = gc.getBounds();
+            Insets in = Toolkit.getDefaultToolkit().getScreenInsets(gc);
+            Rectangle work = new Rectangle(
+                    sb.x + in.left, sb.y + in.top,
+                    sb.width - in.left - in.right,
+                    sb.height - in.top - in.bottom
+            );
+            out.put(KEY_FULLSCREEN, ForegroundWindowProvider.isFullscreen(fg, sb, work));
+        }
+    }
+
+    /** 系统音频（去抖后的结果来自 AudioActivityDetector，这里只是读出来） */
+    final class Audio implements ActivitySource {
+        private final AudioActivityDetector detector;
+
+        public Audio(AudioActivityDetector detector) { this.detector = detector; }
+
+        @Override public String name() { return "audio"; }
+        @Override public long periodMs() { return 250; }
+
+        @Override public void sample(Map<String, Object> out) {
+            out.put(KEY_AUDIO_AVAIL, detector.isAvailable());
+            out.put(KEY_AUDIO_ACTIVE, detector.isActive());
+            out.put(KEY_AUDIO_LEVEL, detector.getLevel());
+        }
+    }
+
+    /** 整机 CPU 占用（0..1，取不到为 -1）；目前只用于显示 */
+    final class CpuLoad implements ActivitySource {
+        private final java.lang.management.OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+
+        @Override public String name() { return "cpu"; }
+        @Override public long periodMs() { return 2000; }
+
+        @Override public void sample(Map<String, Object> out) {
+            double load = -1;
+            if (os instanceof com.sun.management.OperatingSystemMXBean) {
+                load = ((com.sun.management.OperatingSystemMXBean) os).getCpuLoad();
+            }
+            out.put(KEY_CPU_LOAD, load);
+        }
+    }
+}
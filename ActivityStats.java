@@ -0,0 +1,217 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.zone.ZoneRules;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * 长期活跃统计。后台每 SAMPLE_MS 读一次 ActivityEngine 的快照，按分钟归并：
+ *   activity-min.bin   只追加，每分钟一个 int：(epochMinute << 4) | flags
+ *                      flags 某位置 1 表示这一分钟里至少一半采样为真
+ *   activity-hour.bin  每小时一条 16 字节汇总（本地时间）
+ *   activity-day.bin   每天一条 16 字节汇总（本地时间）
+ * 汇总记录：int key（本地 epochHour / epochDay）+ short 分钟数 + 各标志的分钟数 ×4 + short 保留。
+ * 每结算一分钟，只在原地改写当前小时/当天那一条（或追加新的一条），不回头扫分钟数据；
+ * 图表直接读汇总文件的尾部。
+ */
+public final class ActivityStats {
+
+    public static final int ACTIVE     = 1;   // 判定活跃
+    public static final int INPUT      = 2;   // 键鼠活跃
+    public static final int FULLSCREEN = 4;
+    public static final int AUDIO      = 8;
+    private static final int FLAGS = 4;
+
+    private static final long SAMPLE_MS = 5000;
+    private static final int ROLLUP = 16;
+
+    /** 一个时间桶的汇总（key 是本地 epochHour 或 epochDay） */
+    public static final class Bucket {
+        public int key;
+        public int minutes;
+        public final int[] flagMinutes = new int[FLAGS];
+
+        public int active()     { return flagMinutes[0]; }
+        public int input()      { return flagMinutes[1]; }
+        public int fullscreen() { return flagMinutes[2]; }
+        public int audio()      { return flagMinutes[3]; }
+    }
+
+    private final Path minFile, hourFile, dayFile;
+    private final ZoneRules zone = ZoneId.systemDefault().getRules();
+
+    private ActivityEngine engine;
+    private ScheduledFuture<?> poll;
+
+    // —— 当前分钟（采样线程私有） —— //
+    private long curMinute = -1;
+    private int samples = 0;
+    private final int[] flagSamples = new int[FLAGS];
+
+    // —— 当前小时/当天汇总及其在文件里的位置 —— //
+    private final Bucket hour = new Bucket(), day = new Bucket();
+    private long hourPos = -1, dayPos = -1;
+
+    public ActivityStats(Path dir) {
+        minFile = dir.resolve("activity-min.bin");
+        hourFile = dir.resolve("activity-hour.bin");
+        dayFile = dir.resolve("activity-day.bin");
+        hourPos = loadLast(hourFile, hour);
+        dayPos = loadLast(dayFile, day);
+    }
+
+    /** 与 ReminderStore 同目录（-Dpet.state.dir，默认 ./state） */
+    public static ActivityStats defaultStats() {
+        return new ActivityStats(Paths.get(System.getProperty("pet.state.dir", "state")));
+    }
+
+    public synchronized void start(ActivityEngine engine) {
+        this.engine = engine;
+        if (poll == null) poll = BackgroundScheduler.every("activity-stats", SAMPLE_MS, this::sample);
+    }
+
+    /**
+     * 停止采样。当前分钟的计数留着：同一分钟里再 start 就接着累加，
+     * 隔了几分钟再 start 时由第一次采样把它结算掉——每分钟只结算一次，停着的那几分钟不算。
+     */
+    public synchronized void stop() {
+        if (poll != null) { poll.cancel(false); poll = null; }
+    }
+
+    private synchronized void sample() {
+        long minute = System.currentTimeMillis() / 60_000;
+        if (minute != curMinute) {
+            if (curMinute >= 0 && samples > 0) finishMinute(curMinute);
+            curMinute = minute;
+            samples = 0;
+            java.util.Arrays.fill(flagSamples, 0);
+        }
+        ActivitySnapshot s = engine.snapshot();
+        samples++;
+        if (s.userActive())        flagSamples[0]++;
+        if (s.userActiveByInput()) flagSamples[1]++;
+        if (s.fullscreen())        flagSamples[2]++;
+        if (s.audioActive())       flagSamples[3]++;
+    }
+
+    private void finishMinute(long minute) {
+        int flags = 0;
+        for (int i = 0; i < FLAGS; i++) {
+            if (flagSamples[i] * 2 >= samples) flags |= 1 << i;
+        }
+        try {
+            Files.createDirectories(minFile.getParent());
+            try (FileChannel ch = FileChannel.open(minFile, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                ByteBuffer b = ByteBuffer.allocate(4).putInt((int) (minute << FLAGS) | flags);
+                b.flip();
+                ch.write(b);
+            }
+            int offsetMin = zone.getOffset(Instant.ofEpochSecond(minute * 60)).getTotalSeconds() / 60;
+            long local = minute + offsetMin;
+            hourPos = roll(hourFile, hour, hourPos, (int) Math.floorDiv(local, 60), flags);
+            dayPos = roll(dayFile, day, dayPos, (int) Math.floorDiv(local, 1440), flags);
+        } catch (IOException e) {
+            System.err.println("[ActivityStats] 写入失败: " + e);
+        }
+    }
+
+    // 同一个桶就原地改写，否则在文件尾追加一条；返回这条记录的位置
+    private static long roll(Path file, Bucket b, long pos, int key, int flags) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            if (pos < 0 || b.key != key) {
+                pos = ch.size() - ch.size() % ROLLUP;
+                b.key = key;
+                b.minutes = 0;
+                java.util.Arrays.fill(b.flagMinutes, 0);
+            }
+            b.minutes++;
+            for (int i = 0; i < FLAGS; i++) {
+                if ((flags & (1 << i)) != 0) b.flagMinutes[i]++;
+            }
+            ByteBuffer buf = ByteBuffer.allocate(ROLLUP);
+            put(buf, b);
+            buf.flip();
+            ch.write(buf, pos);
+        }
+        return pos;
+    }
+
+    private static void put(ByteBuffer buf, Bucket b) {
+        buf.putInt(b.key).putShort((short) b.minutes);
+        for (int v : b.flagMinutes) buf.putShort((short) v);
+        buf.putShort((short) 0);
+    }
+
+    private static Bucket get(ByteBuffer buf, Bucket b) {
+        b.key = buf.getInt();
+        b.minutes = buf.getShort() & 0xFFFF;
+        for (int i = 0; i < FLAGS; i++) b.flagMinutes[i] = buf.getShort() & 0xFFFF;
+        buf.getShort();
+        return b;
+    }
+
+    private static long loadLast(Path file, Bucket b) {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long pos = ch.size() - ch.size() % ROLLUP - ROLLUP;
+            if (pos < 0) return -1;
+            ByteBuffer buf = ByteBuffer.allocate(ROLLUP);
+            ch.read(buf, pos);
+            buf.flip();
+            get(buf, b);
+            return pos;
+        } catch (IOException e) {
+            return -1;                         // 还没有文件
+        }
+    }
+
+    // ===== 读取（图表用）=====
+
+    /** 最近 count 个自然日（本地），下标 0 最早；没有数据的日子 minutes=0 */
+    public Bucket[] loadDays(int count) {
+        int today = (int) Math.floorDiv(localMinuteNow(), 1440);
+        return load(dayFile, today - count + 1, count);
+    }
+
+    /** 最近 days 个自然日的逐小时数据（本地，从 days-1 天前的 0 点起，共 days × 24 条） */
+    public Bucket[] loadHourGrid(int days) {
+        int today = (int) Math.floorDiv(localMinuteNow(), 1440);
+        return load(hourFile, (today - days + 1) * 24, days * 24);
+    }
+
+    private long localMinuteNow() {
+        long ms = System.currentTimeMillis();
+        return ms / 60_000 + zone.getOffset(Instant.ofEpochMilli(ms)).getTotalSeconds() / 60;
+    }
+
+    // 记录按 key 递增追加，只读尾部 count 条就够（时钟回拨产生的重复 key 合并）
+    private synchronized Bucket[] load(Path file, int firstKey, int count) {
+        Bucket[] out = new Bucket[count];
+        for (int i = 0; i < count; i++) { out[i] = new Bucket(); out[i].key = firstKey + i; }
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = ch.size() - ch.size() % ROLLUP;
+            long from = Math.max(0, size - (long) ROLLUP * count);
+            ByteBuffer buf = ByteBuffer.allocate((int) (size - from));
+            while (buf.hasRemaining() && ch.read(buf, from + buf.position()) > 0) { }
+            buf.flip();
+            Bucket r = new Bucket();
+            while (buf.remaining() >= ROLLUP) {
+                get(buf, r);
+                int i = r.key - firstKey;
+                if (i < 0 || i >= count) continue;
+                out[i].minutes += r.minutes;
+                for (int k = 0; k < FLAGS; k++) out[i].flagMinutes[k] += r.flagMinutes[k];
+            }
+        } catch (IOException e) {
+            // 还没有文件：全空
+        }
+        return out;
+    }
+}
@@ -0,0 +1,221 @@
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.DataLine;
+import javax.sound.sampled.Mixer;
+import javax.sound.sampled.TargetDataLine;
+import java.nio.ByteBuffer;
+
+/**
+ * 系统音频活动探测（尽力而为：捕获 Loopback 设备，如 Stereo Mix / What U Hear）。
+ *
+ * 跟宠物的生命周期走：start() 起一个守护线程，stop() 让它停下并释放设备，close() 等它退出。
+ * 不再持续以 44.1kHz 立体声空转：默认用 8kHz 单声道，每个周期只录一小段窗口
+ * （默认每 1000ms 录 250ms），其余时间线路 stop()、线程睡眠。
+ * 设备不支持低采样率时按 FALLBACK_FORMATS 的顺序逐个退回。
+ *
+ * 每个窗口再切成 frameMs 的小帧逐帧喂给 ActivityGate（平滑 + 双门限 + 最短保持），
+ * isActive() 是去抖后的结果，视频里短暂的安静不会让它来回跳。
+ */
+public final class AudioActivityDetector implements AutoCloseable {
+
+    /** 采样配置；-Dpet.audio.rate / windowMs / periodMs 可改 */
+    public static final class Config {
+        public float sampleRate = 8000f;
+        public int   windowMs   = 250;
+        public int   periodMs   = 1000;
+        public int   frameMs    = 50;
+        public ActivityGate.Params gate = new ActivityGate.Params();
+
+        public static Config fromSystemProperties() {
+            Config c = new Config();
+            c.sampleRate = Integer.getInteger("pet.audio.rate", (int) c.sampleRate);
+            c.windowMs   = Integer.getInteger("pet.audio.windowMs", c.windowMs);
+            c.periodMs   = Math.max(c.windowMs, Integer.getInteger("pet.audio.periodMs", c.periodMs));
+            c.frameMs    = Math.max(10, Math.min(c.windowMs, Integer.getInteger("pet.audio.frameMs", c.frameMs)));
+            c.gate       = ActivityGate.Params.fromSystemProperties();
+            return c;
+        }
+    }
+
+    // 首选配置的采样率单声道，其后是常见 Loopback 设备一定支持的格式
+    private static final float[][] FALLBACK_FORMATS = {
+            {16000f, 1}, {44100f, 1}, {48000f, 1}, {44100f, 2}, {48000f, 2}
+    };
+
+    private final Config cfg;
+    private final ActivityGate gate;
+    private final Object lock = new Object();
+    private Thread thread;
+    private volatile boolean running = false;
+
+    private volatile boolean available = false;   // 找到并打开过 Loopback 设备
+    private volatile boolean searched = false;    // 已经找过（没找到就不再每次 start 都找）
+    private volatile double level = 0.0;          // 最近一个窗口的 RMS，归一化到 0..1
+    private volatile int    peak = 0;             // 最近一个窗口的峰值（样本单位）
+    private volatile double zcr = 0.0;            // 最近一个窗口的过零率
+    private volatile long windows = 0;            // 已分析的窗口数
+    private volatile long cpuNanos = 0;           // 采样线程累计 CPU 时间（含之前几轮的线程）
+    private long cpuBaseNanos = 0;                // 之前几轮线程的合计，只在采样线程里改
+    private volatile AudioFormat format;
+
+    public AudioActivityDetector(Config cfg) {
+        this.cfg = cfg;
+        this.gate = new ActivityGate(cfg.gate);
+    }
+
+    public void start() {
+        synchronized (lock) {
+            if (thread != null && thread.isAlive()) {
+                if (running) return;
+                try {
+                    thread.join(1000);                // 上一轮刚 stop()，等它释放设备
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            if (searched && !available) return;   // 没有 Loopback 设备，降级
+            running = true;
+            thread = new Thread(this::run, "AudioActivity");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            thread.start();
+        }
+    }
+
+    /** 让采样线程停下并关闭设备（不等待） */
+    public void stop() {
+        synchronized (lock) {
+            running = false;
+            if (thread != null) thread.interrupt();
+        }
+        level = 0.0;
+    }
+
+    @Override
+    public void close() {
+        Thread t;
+        synchronized (lock) { t = thread; }
+        stop();
+        if (t == null) return;
+        try {
+            t.join(2000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        TargetDataLine line = openLoopback();
+        searched = true;
+        if (line == null) { available = false; return; }
+        available = true;
+        AudioFormat fmt = line.getFormat();
+        int frame = fmt.getFrameSize();
+        int windowBytes = Math.max(frame, (int) (fmt.getFrameRate() * cfg.windowMs / 1000f) * frame);
+        byte[] buf = new byte[windowBytes];
+        int frameBytes = Math.max(frame, (int) (fmt.getFrameRate() * cfg.frameMs / 1000f) * frame);
+        ByteBuffer view = ByteBuffer.wrap(buf);
+        PcmKernel kernel = PcmKernel.best();
+        PcmKernel.Result r = new PcmKernel.Result();
+        java.lang.management.ThreadMXBean tmx = java.lang.management.ManagementFactory.getThreadMXBean();
+        boolean cpuTime = tmx.isCurrentThreadCpuTimeSupported();
+        try {
+            while (running) {
+                line.flush();
+                line.start();
+                int got = 0;
+                while (running && got < buf.length) {
+                    int n = line.read(buf, got, buf.length - got);
+                    if (n <= 0) break;
+                    got += n;
+                }
+                line.stop();
+                if (got > 0) {
+                    // 窗口的结束时刻大致是现在；逐帧往回推出各帧的时间
+                    long endMs = System.nanoTime() / 1_000_000L;
+                    int usable = got - got % frame;
+                    int frames = (usable + frameBytes - 1) / frameBytes;
+                    for (int f = 0; f < frames; f++) {
+                        int from = f * frameBytes;
+                        int to = Math.min(usable, from + frameBytes);
+                        view.limit(to).position(from);
+                        kernel.analyze(view, fmt.getChannels(), r);
+                        gate.update(r.level(), endMs - (long) (frames - 1 - f) * cfg.frameMs);
+                    }
+                    view.limit(usable).position(0);
+                    kernel.analyze(view, fmt.getChannels(), r);
+                    peak = r.peak;
+                    zcr = r.zcr;
+                    level = r.level();
+                    windows++;
+                }
+                if (cpuTime) cpuNanos = cpuBaseNanos + tmx.getCurrentThreadCpuTime();   // 每窗口一次
+                long rest = cfg.periodMs - cfg.windowMs;
+                if (rest > 0) Thread.sleep(rest);
+            }
+        } catch (InterruptedException stopRequested) {
+            // stop()
+        } catch (Throwable t) {
+            System.err.println("[AudioActivityDetector] 采样失败，停止音频检测: " + t);
+            available = false;
+        } finally {
+            line.close();
+            level = 0.0;
+            gate.reset();
+            if (cpuTime) cpuNanos = cpuBaseNanos + tmx.getCurrentThreadCpuTime();
+            cpuBaseNanos = cpuNanos;
+        }
+    }
+
+    private TargetDataLine openLoopback() {
+        for (Mixer.Info mi : AudioSystem.getMixerInfo()) {
+            String name = mi.getName().toLowerCase();
+            String desc = mi.getDescription().toLowerCase();
+            if (!(name.contains("stereo") || name.contains("mix") || name.contains("loopback")
+                    || desc.contains("stereo") || desc.contains("mix") || desc.contains("loopback")
+                    || name.contains("what u hear") || desc.contains("what u hear"))) continue;
+            Mixer m;
+            try {
+                m = AudioSystem.getMixer(mi);
+            } catch (Exception e) {
+                continue;
+            }
+            TargetDataLine line = tryOpen(m, cfg.sampleRate, 1);
+            for (int i = 0; line == null && i < FALLBACK_FORMATS.length; i++) {
+                line = tryOpen(m, FALLBACK_FORMATS[i][0], (int) FALLBACK_FORMATS[i][1]);
+            }
+            if (line != null) return line;
+        }
+        return null;
+    }
+
+    private TargetDataLine tryOpen(Mixer m, float rate, int channels) {
+        AudioFormat fmt = new AudioFormat(rate, 16, channels, true, false);
+        DataLine.Info info = new DataLine.Info(TargetDataLine.class, fmt);
+        if (!m.isLineSupported(info)) return null;
+        try {
+            TargetDataLine line = (TargetDataLine) m.getLine(info);
+            // 缓冲只要够装一个窗口
+            int bytes = (int) (rate * channels * 2 * Math.max(cfg.windowMs, 100) / 1000f);
+            line.open(fmt, bytes);
+            format = fmt;
+            return line;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    public boolean isAvailable() { return available; }
+    public boolean isRunning()   { return running && thread != null && thread.isAlive(); }
+    public double  getLevel()    { return level; }
+    /** 去抖后的“正在放声音” */
+    public boolean isActive()    { return gate.isActive(); }
+    public ActivityGate getGate() { return gate; }
+    public int     getPeak()     { return peak; }
+    public double  getZeroCrossingRate() { return zcr; }
+    public long    getWindowCount() { return windows; }
+    /** 采样线程累计用掉的 CPU 时间（纳秒；平台不支持线程 CPU 计时则为 0） */
+    public long    getCpuNanos()    { return cpuNanos; }
+    public AudioFormat getFormat() { return format; }
+}
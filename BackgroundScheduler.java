@@ -0,0 +1,39 @@
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 全进程共用的低频后台调度器（守护线程）。各种“每隔一会儿看一眼”的采样
+ * （系统空闲时间、前台窗口……）都挂在这里，而不是各开一个线程或塞进 tick。
+ * 任务应当很快返回；抛出的异常只打印，不会让周期任务停掉。
+ */
+public final class BackgroundScheduler {
+
+    private static final ScheduledThreadPoolExecutor EXEC;
+    static {
+        AtomicInteger n = new AtomicInteger();
+        EXEC = new ScheduledThreadPoolExecutor(2, r -> {
+            Thread t = new Thread(r, "PetBackground-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        EXEC.setRemoveOnCancelPolicy(true);
+    }
+
+    private BackgroundScheduler() { }
+
+    /** 立即执行一次，之后每 periodMs 执行一次；返回值可用来 cancel */
+    public static ScheduledFuture<?> every(String name, long periodMs, Runnable task) {
+        return EXEC.scheduleWithFixedDelay(() -> {
+            try {
+                task.run();
+            } catch (Throwable t) {
+                System.err.println("[BackgroundScheduler] " + name + " 出错: " + t);
+            }
+        }, 0, periodMs, TimeUnit.MILLISECONDS);
+    }
+
+    public static ScheduledExecutorService executor() { return EXEC; }
+}
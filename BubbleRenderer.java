@@ -0,0 +1,143 @@
+import javax.swing.*;
+import java.awt.*;
+import java.awt.font.FontRenderContext;
+import java.awt.font.LineBreakMeasurer;
+import java.awt.font.TextAttribute;
+import java.awt.font.TextLayout;
+import java.awt.geom.RoundRectangle2D;
+import java.awt.image.BufferedImage;
+import java.text.AttributedString;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 文字气泡：把任意文本（提醒、聊天、便签）画成圆角气泡图。
+ * 两级缓存，都按 (文本, 样式) 做键、LRU 淘汰：
+ *   - 排版缓存：折行后的 TextLayout 列表
+ *   - 成品缓存：画好的气泡图（ImageIcon）
+ * 同一句话第二次出现时直接拿成品图，只剩一次贴图。
+ */
+public final class BubbleRenderer {
+
+    /** 气泡样式（不可变，可做缓存键） */
+    public static final class Style {
+        public final Font font;
+        public final Color text, fill, border;
+        public final int padding, maxWidth, arc;
+
+        public Style(Font font, Color text, Color fill, Color border, int padding, int maxWidth, int arc) {
+            this.font = font; this.text = text; this.fill = fill; this.border = border;
+            this.padding = padding; this.maxWidth = maxWidth; this.arc = arc;
+        }
+
+        @Override public boolean equals(Object o) {
+            if (!(o instanceof Style)) return false;
+            Style s = (Style) o;
+            return font.equals(s.font) && text.equals(s.text) && fill.equals(s.fill) && border.equals(s.border)
+                    && padding == s.padding && maxWidth == s.maxWidth && arc == s.arc;
+        }
+        @Override public int hashCode() { return Objects.hash(font, text, fill, border, padding, maxWidth, arc); }
+    }
+
+    public static final Style DEFAULT_STYLE = new Style(
+            new Font(Font.DIALOG, Font.BOLD, 14),
+            new Color(40, 40, 40), new Color(255, 255, 255, 235), new Color(90, 90, 90),
+            10, 220, 16);
+
+    private static final int LAYOUT_CACHE_SIZE = 64;
+    private static final int IMAGE_CACHE_SIZE  = 32;
+
+    // 固定的渲染上下文：排版与实际绘制的 Graphics 无关，才能缓存
+    private static final FontRenderContext FRC = new FontRenderContext(null, true, true);
+
+    private static final class Key {
+        final String text; final Style style;
+        Key(String text, Style style) { this.text = text; this.style = style; }
+        @Override public boolean equals(Object o) {
+            return o instanceof Key && ((Key) o).text.equals(text) && ((Key) o).style.equals(style);
+        }
+        @Override public int hashCode() { return text.hashCode() * 31 + style.hashCode(); }
+    }
+
+    private final Map<Key, List<TextLayout>> layouts = lru(LAYOUT_CACHE_SIZE);
+    private final Map<Key, ImageIcon> images = lru(IMAGE_CACHE_SIZE);
+    private int hits = 0, misses = 0;
+
+    public ImageIcon render(String text) { return render(text, DEFAULT_STYLE); }
+
+    /** 取（或画）一张气泡图；只应在 EDT 上调用 */
+    public ImageIcon render(String text, Style style) {
+        Key key = new Key(text == null ? "" : text, style);
+        ImageIcon icon = images.get(key);
+        if (icon != null) { hits++; return icon; }
+        misses++;
+
+        List<TextLayout> lines = layouts.get(key);
+        if (lines == null) {
+            lines = layout(key.text, style);
+            layouts.put(key, lines);
+        }
+
+        int textW = 1, textH = 0;
+        for (TextLayout tl : lines) {
+            textW = Math.max(textW, (int) Math.ceil(tl.getAdvance()));
+            textH += (int) Math.ceil(tl.getAscent() + tl.getDescent() + tl.getLeading());
+        }
+        int w = textW + style.padding * 2;
+        int h = Math.max(textH, 1) + style.padding * 2;
+
+        BufferedImage img = new BufferedImage(w + 1, h + 1, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = img.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        g.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_ON);
+        RoundRectangle2D shape = new RoundRectangle2D.Float(0, 0, w, h, style.arc, style.arc);
+        g.setColor(style.fill);
+        g.fill(shape);
+        g.setColor(style.border);
+        g.draw(shape);
+
+        g.setColor(style.text);
+        float y = style.padding;
+        for (TextLayout tl : lines) {
+            y += tl.getAscent();
+            tl.draw(g, style.padding, y);
+            y += tl.getDescent() + tl.getLeading();
+        }
+        g.dispose();
+
+        icon = new ImageIcon(img);
+        images.put(key, icon);
+        return icon;
+    }
+
+    // 按 maxWidth 折行；显式换行符各自成段
+    private static List<TextLayout> layout(String text, Style style) {
+        List<TextLayout> out = new ArrayList<>();
+        for (String para : text.split("\n", -1)) {
+            if (para.isEmpty()) {
+                out.add(new TextLayout(" ", style.font, FRC));
+                continue;
+            }
+            AttributedString as = new AttributedString(para);
+            as.addAttribute(TextAttribute.FONT, style.font);
+            LineBreakMeasurer lbm = new LineBreakMeasurer(as.getIterator(), FRC);
+            while (lbm.getPosition() < para.length()) {
+                out.add(lbm.nextLayout(style.maxWidth));
+            }
+        }
+        return out;
+    }
+
+    public int getCacheHits()   { return hits; }
+    public int getCacheMisses() { return misses; }
+
+    private static <K, V> Map<K, V> lru(int cap) {
+        return new LinkedHashMap<K, V>(cap * 2, 0.75f, true) {
+            @Override protected boolean removeEldestEntry(Map.Entry<K, V> e) { return size() > cap; }
+        };
+    }
+}
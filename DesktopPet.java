@@ -4,10 +4,7 @@ import java.awt.event.*;
 import java.awt.image.BufferedImage;
 import java.nio.file.*;
 import java.nio.file.Paths;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Random;
-import java.util.stream.Stream;
 
 public class DesktopPet extends JFrame {
 
@@ -84,31 +81,30 @@ public class DesktopPet extends JFrame {
 
     // ======= 健康提醒：常量 =======
     private static final long ACTIVE_IDLE_MS = 60_000L;     // 超过1分钟无鼠标/键盘 → 视为非活跃，暂停计时
-    private static final int REMIND_MINUTES = 1;           // 每1分钟一个提醒
-    private static final int FPS = Math.max(1, Math.round(1000f / TICK_MS));
-    private static final int REMIND_TICKS = REMIND_MINUTES * 60 * FPS;
+    private static final int REMIND_MINUTES = 1;           // 站/坐默认每1分钟一个提醒（-Dpet.remind.stand.min 可改）
     private static final int BUBBLE_OFFSET_Y = 12;          // 气泡位于宠物上方的偏移（像素）
     private static final int BUBBLE_OFFSET_X = 0;
 
-    // 健康提醒：枚举
-    private enum RemindKind { STAND, SIT }
-
-    // 健康提醒：运行时
-    private long lastUserActionTimeMs = System.currentTimeMillis(); // 最近一次用户输入时间
-    private int activeUseTicks = 0;                                  // 只在“活跃”时累计
-    private boolean reminderEnabled = true;                          // 可被面板开关
-    private RemindKind nextRemind = RemindKind.STAND;                // 下一次弹什么
-    private boolean waitingClick = false;                            // 正在等待用户点掉气泡？
-
-    // —— 健康提醒：调试可视 —— //
-    private boolean dbgUserActiveByInput = false;
-    private boolean dbgFullscreen = false;
-    private boolean dbgAudioBusy = false;
-    private boolean dbgUserActive = false;
-    private long    dbgIdleGapMs = 0;
-
-    // 视频场景：检测设置
-    private boolean detectFullscreen = true; // 可被面板开关
+    // 健康提醒：按累计活跃时间调度（站/坐、喝水、护眼、自定义），见 ReminderScheduler
+    private final ReminderScheduler reminders = ReminderScheduler.withDefaults(REMIND_MINUTES);
+    private ReminderScheduler.Reminder shownReminder = null;        // 正在显示、等用户点掉的那条
+
+    // —— 提醒进度持久化：tick 里每秒看一次有没有变化，变了就编码；最多每 REMINDER_SAVE_MS 写一次盘（后台线程） —— //
+    private static final long REMINDER_SAVE_MS = 5000;
+    private final ReminderStore reminderStore = ReminderStore.defaultStore();
+    private java.nio.ByteBuffer reminderLatest = null;              // 最新一份编码（后台写盘用）
+    private boolean reminderUnsaved = false;
+    private long reminderCheckMs = 0, reminderWriteMs = 0;
+    private long reminderSeenMod = -1, reminderSeenActiveMs = -1;
+
+    // —— 状态推送：tick 里最多每 STATUS_MIN_INTERVAL_MS 组装一次 PetStatus，变了才通知（回调在 EDT 上） —— //
+    private static final long STATUS_MIN_INTERVAL_MS = 1000 / Math.max(1, Integer.getInteger("pet.status.maxHz", 4));
+    private final java.util.List<java.util.function.Consumer<PetStatus>> statusListeners =
+            new java.util.concurrent.CopyOnWriteArrayList<>();
+    private volatile PetStatus status;
+    private long statusBuiltMs = 0;
+
+    // 视频场景：检测设置（全屏开关由 activityEngine 持有）
     private boolean detectAudio = true;      // 可被面板开关（若没有Loopback会自动降级）
 
     // —— 气泡窗口 —— //
@@ -117,16 +113,21 @@ public class DesktopPet extends JFrame {
     private ImageIcon standBubbleIcon = null;
     private ImageIcon sitBubbleIcon = null;
     private boolean bubbleVisible = false;
+    private boolean bubbleIsReminder = false; // 当前气泡是否健康提醒（点掉才确认并重新计时）
+    private final BubbleRenderer bubbleRenderer = new BubbleRenderer();
 
     // —— 避免多次点击导致的抖动 —— //
     private long lastBubbleCloseMs = 0L;
 
-    // —— 音频探测（尽力而为：Loopback，如 Stereo Mix） —— //
-    private volatile boolean audioProbeAvailable = false;
-    private volatile double audioLevelRms = 0.0;
+    // —— 音频探测（尽力而为：Loopback，如 Stereo Mix），随 startRunning/stopRunning 启停 —— //
+    private final AudioActivityDetector audio = new AudioActivityDetector(AudioActivityDetector.Config.fromSystemProperties());
 
-    // —— 全屏检测（JNA） —— //
-    private static class WinRect { int x,y,w,h; }
+    // —— 活跃判定：键鼠空闲 / 全屏 / 音频 / CPU 各自在后台按自己的频率采样（见 ActivitySource），
+    //    引擎合成一个不可变的 ActivitySnapshot，tick 只读引用 —— //
+    private final IdleTimeProvider idleProvider = IdleTimeProvider.detect();
+    private final ForegroundWindowProvider foregroundProvider = ForegroundWindowProvider.detect();
+    private final ActivityEngine activityEngine = new ActivityEngine(ACTIVE_IDLE_MS);
+    private final ActivityStats activityStats = ActivityStats.defaultStats();   // 按分钟落盘 + 小时/天汇总
 
     // 动画状态
     public enum State {
@@ -178,6 +179,9 @@ public class DesktopPet extends JFrame {
     // —— 新增：打哈欠帧 —— //
     private ImageIcon[] yawnLeft, yawnRight;
 
+    // 素材库（清单 + 降级链）
+    private SpriteLibrary sprites;
+
     // 运行时
     private State state = State.IDLE;
     private Mode  mode  = Mode.ROAM;
@@ -244,23 +248,83 @@ public class DesktopPet extends JFrame {
     private final Timer timer;
 
     // 动作记录
-    private final PetRecorder recorder = new PetRecorder(Paths.get("logs"));
+    // 日志配置见 PetRecorder.Options（-Dpet.log.format=binary、durability=group、分段大小、保留天数等）
+    private final PetRecorder recorder = new PetRecorder(Paths.get("logs"), PetRecorder.Options.fromSystemProperties());
     private boolean recordingEnabled = true;
-    private void logAction(String action, String detail) {
-        if (!recordingEnabled) return;
-        recorder.log(tick, action, state.name(), winX, winY, detail);
+    // 会话实时统计（不依赖日志开关）
+    private final SessionStats sessionStats = new SessionStats(State.values());
+
+    // 按事件的级别/采样/限速过滤（-Dpet.log.level、pet.log.sample.*、pet.log.rate.*，面板可改）
+    private final EventFilter eventFilter = EventFilter.fromSystemProperties();
+
+    // 记录关闭或被过滤时在这里就返回，调用点只传枚举和原始类型，不拼字符串
+    private void logEvent(PetEvent ev) {
+        sessionStats.count(ev);
+        if (!recordingEnabled || !eventFilter.admit(ev)) return;
+        recorder.log(tick, ev, state, winX, winY, 0L, null, null, null);
+    }
+    private void logEvent(PetEvent ev, long num) {
+        sessionStats.count(ev);
+        if (!recordingEnabled || !eventFilter.admit(ev)) return;
+        recorder.log(tick, ev, state, winX, winY, num, null, null, null);
+    }
+    private void logEvent(PetEvent ev, State from, State to) {
+        sessionStats.count(ev);
+        if (!recordingEnabled || !eventFilter.admit(ev)) return;
+        recorder.log(tick, ev, state, winX, winY, 0L, from, to, null);
+    }
+    private void logEvent(PetEvent ev, String text) {
+        sessionStats.count(ev);
+        if (!recordingEnabled || !eventFilter.admit(ev)) return;
+        recorder.log(tick, ev, state, winX, winY, 0L, null, null, text);
     }
     public void setRecordingEnabled(boolean on) {
-        if (on) { this.recordingEnabled = true; logAction("REC_ON",""); }
-        else    { logAction("REC_OFF",""); this.recordingEnabled = false; }
+        if (on) { this.recordingEnabled = true; logEvent(PetEvent.REC_ON); }
+        else    { logEvent(PetEvent.REC_OFF); this.recordingEnabled = false; }
     }
     public boolean isRecordingEnabled() { return recordingEnabled; }
+    public SessionStats getSessionStats() { return sessionStats; }
+
+    // —— 运行开销（面板性能页）：tick 耗时、重绘/移窗发出与跳过 —— //
+    private final PerfMonitor perf = new PerfMonitor();
+    private Image lastPaintedFrame = null;
+    public PerfMonitor getPerf() { return perf; }
+
+    // —— 命令队列（多生产者：面板、控制接口线程；单消费者：tick） —— //
+    private static final int MAX_COMMANDS_PER_TICK = 256;
+    private final java.util.concurrent.ConcurrentLinkedQueue<Runnable> commands = new java.util.concurrent.ConcurrentLinkedQueue<>();
+    private Runnable lastSubmitted = null;       // 队尾那条（受 commands 锁保护），相邻的 setSpeed 只合并到它
+    private boolean applyingCommands = false;
+
+    // —— 本机控制接口（见 PetControlServer）；-Dpet.control.port=N 时启动即开 —— //
+    private PetControlServer controlServer = null;
+    /** 打开控制接口；port 为 0 时由系统分配。返回实际端口，失败返回 -1 */
+    public synchronized int startControlServer(int port) {
+        if (controlServer != null) return controlServer.getPort();
+        try {
+            controlServer = new PetControlServer(this, port);
+            System.err.println("[DesktopPet] 控制接口 http://127.0.0.1:" + controlServer.getPort() + "/");
+            return controlServer.getPort();
+        } catch (java.io.IOException e) {
+            System.err.println("[DesktopPet] 控制接口启动失败: " + e);
+            return -1;
+        }
+    }
+    public synchronized void stopControlServer() {
+        if (controlServer != null) { controlServer.close(); controlServer = null; }
+    }
+    /** 控制接口端口；没开返回 -1 */
+    public synchronized int getControlPort() { return controlServer == null ? -1 : controlServer.getPort(); }
+    public PetRecorder getRecorder() { return recorder; }
+    public long getSpriteHeapBytes() { return sprites == null ? 0 : sprites.getHeapBytes(); }
+    public EventFilter getEventFilter() { return eventFilter; }
 
     // 系统时间
     private long lastRealMs = System.currentTimeMillis();
 
-    // —— 新增：鼠标空闲检测相关 —— //
-    private long lastMouseMoveMs = System.currentTimeMillis(); // 最后一次鼠标活动时间
+    // —— 系统级输入空闲：来自 activityEngine 的快照 —— //
+    private long lastSeenIdleMs = 0;                           // 上一 tick 读到的值（变小说明有输入）
+    private long idlePlanMarkMs = 0;                           // 上次触发睡前计划时的空闲值（防抖）
     private boolean idleSleepPlanActive = false;               // 是否正在执行“睡前走角落”计划
     private int idleTargetX = 0;                               // 目标角落 X
     private boolean idleCornerRight = false;                   // 目标是否右角
@@ -306,7 +370,7 @@ public class DesktopPet extends JFrame {
         hasBounced = false;
         yVel  = 2;
         frameIndex = 0;
-        logAction("INIT", "spawn"); // 【日志记录】初始化
+        logEvent(PetEvent.INIT); // 【日志记录】初始化
 
         // 鼠标交互（含睡眠态下的点击/拖拽叫醒）
         MouseAdapter ma = new MouseAdapter() {
@@ -331,7 +395,7 @@ public class DesktopPet extends JFrame {
                     draggedDuringSleep = false;
                     dragOffsetX = e.getX();
                     dragOffsetY = e.getY();
-                    logAction("SLEEP_PRESS", ""); // 【日志记录】
+                    logEvent(PetEvent.SLEEP_PRESS); // 【日志记录】
                     return;
                 }
                 // 非 SLEEP：正常进入 DRAG
@@ -340,7 +404,7 @@ public class DesktopPet extends JFrame {
                 state = State.DRAG;
                 frameIndex = 0;
                 aiSuppressTicks = 90;
-                logAction("DRAG_START", ""); // 【日志记录】
+                logEvent(PetEvent.DRAG_START); // 【日志记录】
                 repaint();
             }
             @Override public void mouseDragged(MouseEvent e) {
@@ -351,7 +415,7 @@ public class DesktopPet extends JFrame {
                         state = State.DRAG_WAKE;
                         frameIndex = 0;
                         aiSuppressTicks = 90;
-                        logAction("DRAG_WAKE_START", ""); // 【日志记录】
+                        logEvent(PetEvent.DRAG_WAKE_START); // 【日志记录】
                     }
                     draggedDuringSleep = true;
                     winX = p.x - dragOffsetX;
@@ -382,7 +446,7 @@ public class DesktopPet extends JFrame {
                     state = State.IDLE;      // 保持 idle 帧
                     frameIndex = 0;
 
-                    logAction("DRAG_SHORT_LIFT_SOFTDROP",""); // 【日志记录四个字】
+                    logEvent(PetEvent.DRAG_SHORT_LIFT_SOFTDROP); // 【日志记录四个字】
                     dragMaxLiftPx = 0;
                     return; // 不再走正常的 FALL/LAND
                 }
@@ -395,19 +459,19 @@ public class DesktopPet extends JFrame {
                     if (!draggedDuringSleep) {
                         state = State.WAKE; frameIndex = 0;
                         wakeShowTicks = 45; // ~1.5s
-                        logAction("WAKE_BY_CLICK",""); // 【日志记录】
+                        logEvent(PetEvent.WAKE_BY_CLICK); // 【日志记录】
                     } else {
                         // 拖拽松手：决定走 FALL_WAKE 还是直接 LAND_WAKE
                         if (winY < floorY) {
                             state = State.FALL_WAKE; frameIndex = 0;
                             hasBounced = false;
                             yVel = Math.max(2, yVel);
-                            logAction("FALL_WAKE_START",""); // 【日志记录】
+                            logEvent(PetEvent.FALL_WAKE_START); // 【日志记录】
                         } else {
                             state = State.LAND_WAKE; frameIndex = 0;
                             landWakeTicks = LAND_WAKE_HOLD_TICKS;
                             winY = floorY; setLocation(winX, winY);
-                            logAction("LAND_WAKE_DIRECT",""); // 【日志记录】
+                            logEvent(PetEvent.LAND_WAKE_DIRECT); // 【日志记录】
                         }
                     }
                     pressedDuringSleep = false;
@@ -431,7 +495,7 @@ public class DesktopPet extends JFrame {
                             state = State.CEILING; frameIndex = 0;
                             yVel = 0; surfaceLatchTicks = 20;
                             aiSuppressTicks = 60;
-                            logAction("DRAG_RELEASE_BACK_TO_CEILING", "");
+                            logEvent(PetEvent.DRAG_RELEASE_BACK_TO_CEILING);
                             dragMaxLiftPx = 0;
                             wasOnCeilingAtPress = false; wasOnGroundAtPress = false;
                             return;
@@ -445,7 +509,7 @@ public class DesktopPet extends JFrame {
                         yVel = 0;
                         state = State.IDLE; frameIndex = 0;
                         aiSuppressTicks = 60;
-                        logAction("DRAG_SHORT_LIFT",""); // 【日志记录】
+                        logEvent(PetEvent.DRAG_SHORT_LIFT); // 【日志记录】
                         dragMaxLiftPx = 0;
                         wasOnGroundAtPress = false; wasOnCeilingAtPress = false;
                         return;
@@ -467,77 +531,15 @@ public class DesktopPet extends JFrame {
                     wasOnGroundAtPress = false; 
                     wasOnCeilingAtPress = false;
                     aiSuppressTicks = 90;
-                    logAction("DRAG_END", ""); // 【日志记录】
+                    logEvent(PetEvent.DRAG_END); // 【日志记录】
                 }
             }
         };
         canvas.addMouseListener(ma);
         canvas.addMouseMotionListener(ma);
 
-        // —— 全局鼠标事件监听：用于“1分钟不动就执行睡前走角落计划” —— //
-        Toolkit.getDefaultToolkit().addAWTEventListener(ev -> {
-            int id = ev.getID();
-            if (id == MouseEvent.MOUSE_MOVED ||
-                id == MouseEvent.MOUSE_DRAGGED ||
-                id == MouseEvent.MOUSE_PRESSED ||
-                id == MouseEvent.MOUSE_RELEASED ||
-                id == MouseEvent.MOUSE_WHEEL) {
-                lastMouseMoveMs = System.currentTimeMillis();
-            }
-        }, AWTEvent.MOUSE_EVENT_MASK
-         | AWTEvent.MOUSE_MOTION_EVENT_MASK
-         | AWTEvent.MOUSE_WHEEL_EVENT_MASK);
-
-        // —— 素材加载（全部必备）——
-        idleLeft     = loadIconsFromDir("sprites/idle_left");
-        idleRight    = loadIconsFromDir("sprites/idle_right");
-        walkLeft     = loadIconsFromDir("sprites/walk_left");
-        walkRight    = loadIconsFromDir("sprites/walk_right");
-        dragLeft     = loadIconsFromDir("sprites/drag_left");
-        dragRight    = loadIconsFromDir("sprites/drag_right");
-        fallLeft     = loadIconsFromDir("sprites/fall_left");
-        fallRight    = loadIconsFromDir("sprites/fall_right");
-        landLeft     = loadIconsFromDir("sprites/land_left");
-        landRight    = loadIconsFromDir("sprites/land_right");
-        climbLeft    = loadIconsFromDir("sprites/climb_left");
-        climbRight   = loadIconsFromDir("sprites/climb_right");
-        ceilingLeft  = loadIconsFromDir("sprites/ceiling_left");
-        ceilingRight = loadIconsFromDir("sprites/ceiling_right");
-        grabLeft     = loadIconsFromDir("sprites/grab_left");
-        grabRight    = loadIconsFromDir("sprites/grab_right");
-        swingLeft    = loadIconsFromDir("sprites/swing_left");
-        swingRight   = loadIconsFromDir("sprites/swing_right");
-        sleepFrames  = loadIconsFromDir("sprites/sleep");
-        wakeFrames   = loadIconsFromDir("sprites/wake");
-
-        dragWakeLeft = loadIconsFromDir("sprites/drag_wake_left");
-        dragWakeRight= loadIconsFromDir("sprites/drag_wake_right");
-        fallWakeLeft = loadIconsFromDir("sprites/fall_wake_left");
-        fallWakeRight= loadIconsFromDir("sprites/fall_wake_right");
-        landWakeLeft = loadIconsFromDir("sprites/land_wake_left");
-        landWakeRight= loadIconsFromDir("sprites/land_wake_right");
-
-        // —— 新增：打哈欠 —— //
-        yawnLeft     = loadIconsFromDir("sprites/yawn_left");
-        yawnRight    = loadIconsFromDir("sprites/yawn_right");
-
-        // === 全局用户输入监听：鼠标 & 键盘，更新 lastUserActionTimeMs ===
-        Toolkit.getDefaultToolkit().addAWTEventListener(ev -> {
-            int id = ev.getID();
-            switch (id) {
-                case MouseEvent.MOUSE_MOVED:
-                case MouseEvent.MOUSE_DRAGGED:
-                case MouseEvent.MOUSE_PRESSED:
-                case MouseEvent.MOUSE_RELEASED:
-                case MouseEvent.MOUSE_WHEEL:
-                case KeyEvent.KEY_PRESSED:
-                case KeyEvent.KEY_RELEASED:
-                case KeyEvent.KEY_TYPED:
-                    lastUserActionTimeMs = System.currentTimeMillis();
-                    break;
-            }
-        }, AWTEvent.MOUSE_EVENT_MASK | AWTEvent.MOUSE_MOTION_EVENT_MASK |
-           AWTEvent.MOUSE_WHEEL_EVENT_MASK | AWTEvent.KEY_EVENT_MASK);
+        // —— 素材加载（读 sprites/manifest.txt，缺失动画按降级链替代）——
+        loadAllSprites();
 
         // === 加载两张气泡 PNG ===
         standBubbleIcon = new ImageIcon("assets/stand_bubble.png");
@@ -555,48 +557,48 @@ public class DesktopPet extends JFrame {
         bubbleWin.addMouseListener(new MouseAdapter() {
             @Override public void mouseClicked(MouseEvent e) {
                 if (bubbleVisible && e.getClickCount() == 1) {
-                    hideBubbleAndAdvance();
+                    if (bubbleIsReminder) hideBubbleAndAdvance();
+                    else hideBubble();
                 }
             }
         });
 
-
-        // === 尝试启动音频采样（Loopback设备，如 Stereo Mix）。失败则自动降级 ===
-        startAudioProbeThread();
+        // 恢复上次的提醒进度（退出时由 dispose 写最新一份）
+        reminderStore.restore(reminders);
+        reminderSeenMod = reminders.getModCount();
 
         // 计时器
-        timer = new Timer(TICK_MS, e -> onTick());
+        activityEngine.addSource(new ActivitySource.InputIdle(idleProvider));
+        activityEngine.addSource(new ActivitySource.Fullscreen(foregroundProvider,
+                this::getGraphicsConfiguration, activityEngine::isUseFullscreen));
+        activityEngine.addSource(new ActivitySource.Audio(audio));
+        activityEngine.addSource(new ActivitySource.CpuLoad());
+
+        status = buildStatus();
+        Integer controlPort = Integer.getInteger("pet.control.port");
+        if (controlPort != null) startControlServer(controlPort);
+        timer = new Timer(TICK_MS, e -> {
+            long t0 = System.nanoTime();
+            onTick();
+            perf.tickDone(t0, System.nanoTime());
+        });
     }
 
     // ===== 每帧逻辑 =====
     private void onTick() {
+        applyCommands();   // 外部命令统一在这里生效，不和 tick 交错
         // ===== 健康提醒：活跃判定 + 计时 =====
-        long nowMs = System.currentTimeMillis();
-        dbgIdleGapMs = nowMs - lastUserActionTimeMs;
-
-        dbgUserActiveByInput = (dbgIdleGapMs <= ACTIVE_IDLE_MS);
-
-        // —— 视频活跃：全屏 + 音频 —— //
-        boolean fullscreen = detectFullscreen && isForegroundFullscreen();
-        boolean audioBusy  = detectAudio && audioProbeAvailable && (audioLevelRms > 0.01);
-
-        dbgFullscreen = fullscreen;
-        dbgAudioBusy  = audioBusy;
-
-        // 若有音频探测能力：全屏 && 音频 才判定活跃；若无音频探测：全屏单独成立
-        dbgUserActive = dbgUserActiveByInput || (fullscreen && (audioProbeAvailable ? audioBusy : true));
-
-        boolean userActive = dbgUserActive;
-
-        if (reminderEnabled && !waitingClick) {
-            if (userActive) {
-                if (activeUseTicks < REMIND_TICKS) activeUseTicks++;
-                if (activeUseTicks >= REMIND_TICKS) {
-                    showBubbleFor(nextRemind); // 到点弹泡
-                    waitingClick = true;       // 等用户点掉
-                }
-            }
+        ActivitySnapshot activity = activityEngine.snapshot();   // 判定已在后台算好（见 ActivityEngine）
+        long idleMs = activity.inputIdleMs();
+        boolean userActive = activity.userActive();
+
+        reminders.tick(System.nanoTime(), userActive);
+        if (shownReminder == null) {
+            ReminderScheduler.Reminder due = reminders.pollDue();   // 队列里优先级最高的
+            if (due != null) showReminder(due);                     // 到点弹泡，等用户点掉
         }
+        persistReminders(System.currentTimeMillis());
+        publishStatus(System.currentTimeMillis());
         // 若气泡可见，让它跟随宠物窗口
         if (bubbleVisible) {
             Point p = getLocationOnScreen();
@@ -624,16 +626,17 @@ public class DesktopPet extends JFrame {
             setLocation(winX, winY);     // —— 瞬移 ——  // 【日志记录】
             state = State.SLEEP; frameIndex = 0;
             idleSleepPlanActive = false; // 退出任何计划
-            logAction("ENTER_SLEEP_TELEPORT","gap="+gap); // 【日志记录】
+            logEvent(PetEvent.ENTER_SLEEP_TELEPORT, gap); // 【日志记录】
         }
 
-        // —— 鼠标全局空闲检测：超过 MOUSE_IDLE_MS，启动“睡前走角落计划” —— //
+        if (idleMs < lastSeenIdleMs) idlePlanMarkMs = 0;   // 期间有过输入
+        lastSeenIdleMs = idleMs;
+        // —— 键鼠全局空闲检测：超过 MOUSE_IDLE_MS，启动“睡前走角落计划” —— //
         if (state != State.SLEEP && state != State.WAKE
                 && state != State.DRAG_WAKE && state != State.FALL_WAKE && state != State.LAND_WAKE) {
-            long idleGap = now - lastMouseMoveMs;
-            if (idleGap >= MOUSE_IDLE_MS) {
+            if (idleMs - idlePlanMarkMs >= MOUSE_IDLE_MS) {
                 startIdleSleepPlan();        // 开启计划（到地面→走角落→哈欠→睡）
-                lastMouseMoveMs = now;       // 防抖重置
+                idlePlanMarkMs = idleMs;     // 防抖：再空闲一个周期才会再触发
             }
         }
 
@@ -683,7 +686,7 @@ public class DesktopPet extends JFrame {
                     state = State.YAWN;
                     frameIndex = 0;
                     yawnTicks = YAWN_MIN_TICKS;
-                    logAction("ENTER_STATE","SLEEP_WALK_TO_CORNER->YAWN"); // 【日志记录】
+                    logEvent(PetEvent.ENTER_STATE, State.SLEEP_WALK_TO_CORNER, State.YAWN); // 【日志记录】
                 }
                 break;
             }
@@ -698,7 +701,7 @@ public class DesktopPet extends JFrame {
                 if (--yawnTicks <= 0) {
                     state = State.SLEEP; frameIndex = 0;
                     idleSleepPlanActive = false;
-                    logAction("ENTER_STATE","YAWN->SLEEP"); // 【日志记录】
+                    logEvent(PetEvent.ENTER_STATE, State.YAWN, State.SLEEP); // 【日志记录】
                 }
                 break;
             }
@@ -732,7 +735,7 @@ public class DesktopPet extends JFrame {
                         hasBounced = false; // 重置，等待下一次“新的落地周期”
                         state = State.LAND_WAKE; frameIndex = 0;
                         landWakeTicks = LAND_WAKE_HOLD_TICKS;
-                        logAction("ENTER_STATE","FALL_WAKE->LAND_WAKE"); // 【日志记录】
+                        logEvent(PetEvent.ENTER_STATE, State.FALL_WAKE, State.LAND_WAKE); // 【日志记录】
                         break;
                     }
                 }
@@ -750,7 +753,7 @@ public class DesktopPet extends JFrame {
                 if (tick % 5 == 0) frameIndex++;
                 if (--landWakeTicks <= 0) {
                     state = State.IDLE; frameIndex = 0;
-                    logAction("ENTER_STATE","LAND_WAKE->IDLE"); // 【日志记录】
+                    logEvent(PetEvent.ENTER_STATE, State.LAND_WAKE, State.IDLE); // 【日志记录】
                 }
                 break;
             }
@@ -817,13 +820,13 @@ public class DesktopPet extends JFrame {
                     winX = left; winY = floorY; setLocation(winX, winY);
                     state = State.GRAB_LEFT; frameIndex = 0; grabTicks = GRAB_MIN_TICKS;
                     surfaceLatchTicks = 20; yVel = 0;
-                    logAction("WALK_EDGE_GRAB","LEFT"); // 【日志记录】
+                    logEvent(PetEvent.WALK_EDGE_GRAB_LEFT); // 【日志记录】
                     break;
                 } else if (winX >= right) {
                     winX = right; winY = floorY; setLocation(winX, winY);
                     state = State.GRAB_RIGHT; frameIndex = 0; grabTicks = GRAB_MIN_TICKS;
                     surfaceLatchTicks = 20; yVel = 0;
-                    logAction("WALK_EDGE_GRAB","RIGHT"); // 【日志记录】
+                    logEvent(PetEvent.WALK_EDGE_GRAB_RIGHT); // 【日志记录】
                     break;
                 }
 
@@ -861,7 +864,7 @@ public class DesktopPet extends JFrame {
                         yVel = 0;
                         hasBounced = false;
                         state = State.LAND; landTicks = LAND_HOLD_TICKS; frameIndex = 0;
-                        logAction("ENTER_STATE","FALL->LAND"); // 【日志记录】
+                        logEvent(PetEvent.ENTER_STATE, State.FALL, State.LAND); // 【日志记录】
                         break;
                     }
                 }
@@ -882,18 +885,18 @@ public class DesktopPet extends JFrame {
                     if (afterLand == AfterLand.SLEEP_PLAN_WALK_TO_CORNER) {
                         afterLand = AfterLand.NONE;
                         state = State.SLEEP_WALK_TO_CORNER; frameIndex = 0;
-                        logAction("AFTER_LAND","SLEEP_WALK_TO_CORNER"); // 【日志记录】
+                        logEvent(PetEvent.AFTER_LAND_SLEEP_WALK_TO_CORNER); // 【日志记录】
                     } else if (afterLand == AfterLand.WALK_TO_LEFT_CLIMB) {
                         state = State.WALK_TO_LEFT; frameIndex = 0;
                         afterLand = AfterLand.NONE;
-                        logAction("AFTER_LAND","WALK_TO_LEFT_CLIMB"); // 【日志记录】
+                        logEvent(PetEvent.AFTER_LAND_WALK_TO_LEFT_CLIMB); // 【日志记录】
                     } else if (afterLand == AfterLand.WALK_TO_RIGHT_CLIMB) {
                         state = State.WALK_TO_RIGHT; frameIndex = 0;
                         afterLand = AfterLand.NONE;
-                        logAction("AFTER_LAND","WALK_TO_RIGHT_CLIMB"); // 【日志记录】
+                        logEvent(PetEvent.AFTER_LAND_WALK_TO_RIGHT_CLIMB); // 【日志记录】
                     } else {
                         state = State.IDLE; frameIndex = 0;
-                        logAction("ENTER_STATE","LAND->IDLE"); // 【日志记录】
+                        logEvent(PetEvent.ENTER_STATE, State.LAND, State.IDLE); // 【日志记录】
                     }
                 }
                 break;
@@ -920,7 +923,7 @@ public class DesktopPet extends JFrame {
                     frameIndex = 0;
                     climbDirY = -1; state = State.CLIMB_LEFT;
                     surfaceLatchTicks = 20; yVel = 0;
-                    logAction("ENTER_STATE","GRAB_LEFT->CLIMB_LEFT"); // 【日志记录】
+                    logEvent(PetEvent.ENTER_STATE, State.GRAB_LEFT, State.CLIMB_LEFT); // 【日志记录】
                 }
                 break;
             }
@@ -944,7 +947,7 @@ public class DesktopPet extends JFrame {
                     frameIndex = 0;
                     climbDirY = -1; state = State.CLIMB_RIGHT;
                     surfaceLatchTicks = 20; yVel = 0;
-                    logAction("ENTER_STATE","GRAB_RIGHT->CLIMB_RIGHT"); // 【日志记录】
+                    logEvent(PetEvent.ENTER_STATE, State.GRAB_RIGHT, State.CLIMB_RIGHT); // 【日志记录】
                 }
                 break;
             }
@@ -971,7 +974,7 @@ public class DesktopPet extends JFrame {
                     frameIndex = 0;
                     climbDirY = +1; state = State.CLIMB_LEFT;
                     surfaceLatchTicks = 20; yVel = 0;
-                    logAction("ENTER_STATE","SWING_LEFT->CLIMB_LEFT"); // 【日志记录】
+                    logEvent(PetEvent.ENTER_STATE, State.SWING_LEFT, State.CLIMB_LEFT); // 【日志记录】
                 }
                 break;
             }
@@ -996,7 +999,7 @@ public class DesktopPet extends JFrame {
                     frameIndex = 0;
                     climbDirY = +1; state = State.CLIMB_RIGHT;
                     surfaceLatchTicks = 20; yVel = 0;
-                    logAction("ENTER_STATE","SWING_RIGHT->CLIMB_RIGHT"); // 【日志记录】
+                    logEvent(PetEvent.ENTER_STATE, State.SWING_RIGHT, State.CLIMB_RIGHT); // 【日志记录】
                 }
                 break;
             }
@@ -1021,11 +1024,11 @@ public class DesktopPet extends JFrame {
                     state = State.CEILING_ATTACH_LEFT; frameIndex = 0;
                     attachTicks = CEIL_ATTACH_MIN_TICKS;
                     surfaceLatchTicks = 20; yVel = 0;
-                    logAction("ENTER_STATE","CLIMB_LEFT->CEILING_ATTACH_LEFT"); // 【日志记录】
+                    logEvent(PetEvent.ENTER_STATE, State.CLIMB_LEFT, State.CEILING_ATTACH_LEFT); // 【日志记录】
                 } else if (winY >= floorY) {
                     winY = floorY; setLocation(winX, winY);
                     state = State.DISMOUNT_LEFT; frameIndex = 0; dismountTicks = DISMOUNT_MIN_TICKS;
-                    logAction("ENTER_STATE","CLIMB_LEFT->DISMOUNT_LEFT"); // 【日志记录】
+                    logEvent(PetEvent.ENTER_STATE, State.CLIMB_LEFT, State.DISMOUNT_LEFT); // 【日志记录】
                 } else {
                     if (wallPauseTicks > 0) wallHangTicks++; else wallHangTicks = 0;
                 }
@@ -1052,11 +1055,11 @@ public class DesktopPet extends JFrame {
                     state = State.CEILING_ATTACH_RIGHT; frameIndex = 0;
                     attachTicks = CEIL_ATTACH_MIN_TICKS;
                     surfaceLatchTicks = 20; yVel = 0;
-                    logAction("ENTER_STATE","CLIMB_RIGHT->CEILING_ATTACH_RIGHT"); // 【日志记录】
+                    logEvent(PetEvent.ENTER_STATE, State.CLIMB_RIGHT, State.CEILING_ATTACH_RIGHT); // 【日志记录】
                 } else if (winY >= floorY) {
                     winY = floorY; setLocation(winX, winY);
                     state = State.DISMOUNT_RIGHT; frameIndex = 0; dismountTicks = DISMOUNT_MIN_TICKS;
-                    logAction("ENTER_STATE","CLIMB_RIGHT->DISMOUNT_RIGHT"); // 【日志记录】
+                    logEvent(PetEvent.ENTER_STATE, State.CLIMB_RIGHT, State.DISMOUNT_RIGHT); // 【日志记录】
                 } else {
                     if (wallPauseTicks > 0) wallHangTicks++; else wallHangTicks = 0;
                 }
@@ -1076,7 +1079,7 @@ public class DesktopPet extends JFrame {
                     state = State.CEILING; frameIndex = 0;
                     facingRight = true;
                     surfaceLatchTicks = 20; yVel = 0;
-                    logAction("ENTER_STATE","CEILING_ATTACH_LEFT->CEILING"); // 【日志记录】
+                    logEvent(PetEvent.ENTER_STATE, State.CEILING_ATTACH_LEFT, State.CEILING); // 【日志记录】
                 }
                 break;
             }
@@ -1090,7 +1093,7 @@ public class DesktopPet extends JFrame {
                     state = State.CEILING; frameIndex = 0;
                     facingRight = false;
                     surfaceLatchTicks = 20; yVel = 0;
-                    logAction("ENTER_STATE","CEILING_ATTACH_RIGHT->CEILING"); // 【日志记录】
+                    logEvent(PetEvent.ENTER_STATE, State.CEILING_ATTACH_RIGHT, State.CEILING); // 【日志记录】
                 }
                 break;
             }
@@ -1103,7 +1106,7 @@ public class DesktopPet extends JFrame {
                 if (tick % DISMOUNT_FRAME_STEP == 0) frameIndex++;
                 if (--dismountTicks <= 0) {
                     state = State.IDLE; frameIndex = 0;
-                    logAction("ENTER_STATE","DISMOUNT_LEFT->IDLE"); // 【日志记录】
+                    logEvent(PetEvent.ENTER_STATE, State.DISMOUNT_LEFT, State.IDLE); // 【日志记录】
                 }
                 break;
             }
@@ -1114,7 +1117,7 @@ public class DesktopPet extends JFrame {
                 if (tick % DISMOUNT_FRAME_STEP == 0) frameIndex++;
                 if (--dismountTicks <= 0) {
                     state = State.IDLE; frameIndex = 0;
-                    logAction("ENTER_STATE","DISMOUNT_RIGHT->IDLE"); // 【日志记录】
+                    logEvent(PetEvent.ENTER_STATE, State.DISMOUNT_RIGHT, State.IDLE); // 【日志记录】
                 }
                 break;
             }
@@ -1137,14 +1140,14 @@ public class DesktopPet extends JFrame {
                         winX = left;  setLocation(winX, winY);
                         state = State.SWING_LEFT;  frameIndex = 0; swingTicks = SWING_MIN_TICKS;
                         surfaceLatchTicks = 20; yVel = 0;
-                        logAction("CEILING_EDGE_SWING","LEFT"); // 【日志记录】
+                        logEvent(PetEvent.CEILING_EDGE_SWING_LEFT); // 【日志记录】
                         break;
                     }
                     if (winX >= right) {
                         winX = right; setLocation(winX, winY);
                         state = State.SWING_RIGHT; frameIndex = 0; swingTicks = SWING_MIN_TICKS;
                         surfaceLatchTicks = 20; yVel = 0;
-                        logAction("CEILING_EDGE_SWING","RIGHT"); // 【日志记录】
+                        logEvent(PetEvent.CEILING_EDGE_SWING_RIGHT); // 【日志记录】
                         break;
                     }
                 }
@@ -1159,28 +1162,112 @@ public class DesktopPet extends JFrame {
 
         // ===== 闲逛 AI 调度 =====
         aiTick();
+        sessionStats.observe(state.ordinal(), System.nanoTime());
         if (bubbleVisible) positionBubble();
-        canvas.repaint();
+        // 画面只取决于当前帧图：没换图就不重绘（移窗不需要重绘内容）
+        Image frame = currentFrameImage();
+        boolean changed = frame != lastPaintedFrame;
+        if (changed) {
+            lastPaintedFrame = frame;
+            canvas.repaint();
+        }
+        perf.repaint(changed);
+    }
+
+    private Image currentFrameImage() {
+        ImageIcon[] arr = getCurrentFrames();
+        return (arr == null || arr.length == 0) ? null : arr[frameIndex % arr.length].getImage();
+    }
+
+    // 位置没变就不发原生移窗请求（不少分支每帧都 setLocation 同一个位置）
+    @Override
+    public void setLocation(int x, int y) {
+        boolean changed = x != getX() || y != getY();
+        if (changed) super.setLocation(x, y);
+        if (perf != null) perf.move(changed);     // 父类构造期间可能先被调到
     }
 
     // 显示气泡
-    private void showBubbleFor(RemindKind kind) {
-        ImageIcon icon = (kind == RemindKind.STAND) ? standBubbleIcon : sitBubbleIcon;
+    private void showReminder(ReminderScheduler.Reminder r) {
+        ImageIcon icon = null;
+        if (ReminderScheduler.STAND.equals(r.id)) {
+            icon = (r.phase() % 2 == 0) ? standBubbleIcon : sitBubbleIcon;
+        }
         if (icon == null || icon.getIconWidth() <= 0) {
-            // 没图则直接忽略（也可改为 SystemTray 提醒）
-            return;
+            // 其它种类或没图：文字气泡
+            icon = bubbleRenderer.render(r.text());
         }
-        bubbleLabel.setIcon(icon);
-        bubbleWin.pack();
+        shownReminder = r;
+        showBubbleIcon(icon, true);
+    }
+
+    // 文字气泡：聊天/便签等任意文本（健康提醒气泡正在等点击时不覆盖）
+    public void say(String text) {
+        if (text == null || text.trim().isEmpty()) return;
+        submit(() -> doSay(text));
+    }
+
+    private void doSay(String text) {
+        if (bubbleVisible && bubbleIsReminder) return;
+        showBubbleIcon(bubbleRenderer.render(text.trim()), false);
+        logEvent(PetEvent.SAY, text);
+    }
+
+    private void showBubbleIcon(ImageIcon icon, boolean reminder) {
+        if (bubbleLabel.getIcon() != icon) {
+            bubbleLabel.setIcon(icon);
+            bubbleWin.pack();
+        }
+        bubbleIsReminder = reminder;
+        bubbleVisible = true;
 
         // 初始位置：统一由 positionBubble() 计算
         positionBubble();
 
         bubbleWin.setVisible(true);
-        bubbleVisible = true;
     }
 
-    // 关闭气泡并推进“站/坐”周期、重置计时
+    // 只关闭气泡（非提醒气泡）
+    private void hideBubble() {
+        bubbleWin.setVisible(false);
+        bubbleVisible = false;
+    }
+
+    private void persistReminders(long nowMs) {
+        if (nowMs - reminderCheckMs < 1000) return;
+        reminderCheckMs = nowMs;
+        long mod = reminders.getModCount(), act = reminders.getActiveMs();
+        if (mod != reminderSeenMod || act != reminderSeenActiveMs) {
+            reminderSeenMod = mod;
+            reminderSeenActiveMs = act;
+            reminderLatest = ReminderStore.encode(reminders);
+            reminderUnsaved = true;
+        }
+        if (reminderUnsaved && nowMs - reminderWriteMs >= REMINDER_SAVE_MS) {
+            reminderUnsaved = false;
+            reminderWriteMs = nowMs;
+            java.nio.ByteBuffer b = reminderLatest;
+            BackgroundScheduler.executor().execute(() -> reminderStore.write(b));
+        }
+    }
+
+    private PetStatus buildStatus() {
+        ActivitySnapshot a = activityEngine.snapshot();
+        return new PetStatus(getNextRemindLabel(), getElapsedActiveSeconds(), getProgressPercent(),
+                reminders.queuedCount(), a.inputIdleMs() / 1000, a.fullscreen(),
+                a.audioAvailable(), a.audioActive(), audio.getLevel(), a.userActive());
+    }
+
+    private void publishStatus(long nowMs) {
+        if (nowMs - statusBuiltMs < STATUS_MIN_INTERVAL_MS) return;
+        statusBuiltMs = nowMs;
+        PetStatus s = buildStatus();
+        if (s.equals(status)) return;
+        status = s;
+        for (java.util.function.Consumer<PetStatus> l : statusListeners) l.accept(s);
+    }
+
+    // 关闭提醒气泡并确认这条提醒（站/坐轮换、重新计时）
     private void hideBubbleAndAdvance() {
         // 幂等保护：已经不可见就别再切
         if (!bubbleVisible) return;
@@ -1193,11 +1280,8 @@ public class DesktopPet extends JFrame {
         // 正常关闭与推进周期
         bubbleWin.setVisible(false);
         bubbleVisible = false;
-        waitingClick = false;
-        activeUseTicks = 0;
-
-        // 只切换一次“下一次提醒”
-        nextRemind = (nextRemind == RemindKind.STAND) ? RemindKind.SIT : RemindKind.STAND;
+        reminders.acknowledge(shownReminder);
+        shownReminder = null;            // 下一 tick 再弹队列里的下一条
     }
 
 
@@ -1233,20 +1317,20 @@ public class DesktopPet extends JFrame {
 
                 int r = rng.nextInt(100);
                 if (r < 55) {
-                    setWalk();
-                    if (rng.nextBoolean()) setFacingRight(true); else setFacingRight(false);
+                    doWalk();
+                    if (rng.nextBoolean()) doFacingRight(true); else doFacingRight(false);
                     aiActionTicks = rand(ROAM_WALK_MIN, ROAM_WALK_MAX);
-                    logAction("AI_DECISION","WALK dir=" + (facingRight?"R":"L")); // 【日志记录】
+                    logEvent(facingRight ? PetEvent.AI_DECISION_WALK_RIGHT : PetEvent.AI_DECISION_WALK_LEFT); // 【日志记录】
                 } else if (r < 75) {
-                    setIdle();
+                    doIdle();
                     aiActionTicks = rand(ROAM_IDLE_MIN, ROAM_IDLE_MAX);
-                    logAction("AI_DECISION","IDLE"); // 【日志记录】
+                    logEvent(PetEvent.AI_DECISION_IDLE); // 【日志记录】
                 } else if (r < 88) {
-                    startClimbLeft();
-                    logAction("AI_DECISION","CLIMB_LEFT"); // 【日志记录】
+                    doClimbLeft();
+                    logEvent(PetEvent.AI_DECISION_CLIMB_LEFT); // 【日志记录】
                 } else {
-                    startClimbRight();
-                    logAction("AI_DECISION","CLIMB_RIGHT"); // 【日志记录】
+                    doClimbRight();
+                    logEvent(PetEvent.AI_DECISION_CLIMB_RIGHT); // 【日志记录】
                 }
                 aiCooldown = rand(ROAM_COOLDOWN_MIN, ROAM_COOLDOWN_MAX);
                 return;
@@ -1260,9 +1344,9 @@ public class DesktopPet extends JFrame {
                 } else {
                     walkTarget = 0;
                     if (Math.abs(walkVx) <= 0) {
-                        setIdle();
+                        doIdle();
                         aiCooldown = rand(ROAM_COOLDOWN_MIN, ROAM_COOLDOWN_MAX);
-                        logAction("AI_DECISION","WALK->IDLE"); // 【日志记录】
+                        logEvent(PetEvent.AI_DECISION_WALK_TO_IDLE); // 【日志记录】
                     }
                 }
                 return;
@@ -1272,16 +1356,16 @@ public class DesktopPet extends JFrame {
             case CLIMB_RIGHT: {
                 if (wallPauseTicks <= 0 && rng.nextInt(120) == 0) {
                     wallPauseTicks = rand(ROAM_PAUSE_MIN, ROAM_PAUSE_MAX);
-                    logAction("AI_WALL","PAUSE " + wallPauseTicks + " ticks"); // 【日志记录】
+                    logEvent(PetEvent.AI_WALL_PAUSE, wallPauseTicks); // 【日志记录】
                 } else if (wallPauseTicks <= 0 && rng.nextInt(180) == 0) {
                     climbDirY = rng.nextBoolean() ? -1 : +1;
-                    logAction("AI_WALL","FLIP_DIR " + (climbDirY>0?"DOWN":"UP")); // 【日志记录】
+                    logEvent(climbDirY > 0 ? PetEvent.AI_WALL_FLIP_DOWN : PetEvent.AI_WALL_FLIP_UP); // 【日志记录】
                 }
 
                 if (wallHangTicks > WALL_HANG_MIN && tick % 30 == 0 && rng.nextInt(5) == 0) {
                     state = State.FALL; hasBounced=false; yVel = 0; frameIndex = 0;
                     wallHangTicks = 0;
-                    logAction("HANG_DROP","WALL"); // 【日志记录】
+                    logEvent(PetEvent.HANG_DROP_WALL); // 【日志记录】
                 }
                 return;
             }
@@ -1290,11 +1374,11 @@ public class DesktopPet extends JFrame {
                 if (ceilingPauseTicks <= 0) {
                     if (rng.nextInt(150) == 0) {
                         ceilingPauseTicks = rand(ROAM_PAUSE_MIN, ROAM_PAUSE_MAX);
-                        logAction("AI_TOP","PAUSE " + ceilingPauseTicks + " ticks"); // 【日志记录】
+                        logEvent(PetEvent.AI_TOP_PAUSE, ceilingPauseTicks); // 【日志记录】
                     } else if (aiActionTicks <= 0) {
                         facingRight = rng.nextBoolean();
                         aiActionTicks = rand(ROAM_CLIMB_MIN, ROAM_CLIMB_MAX);
-                        logAction("AI_TOP","FLIP_DIR " + (facingRight?"R":"L")); // 【日志记录】
+                        logEvent(facingRight ? PetEvent.AI_TOP_FLIP_RIGHT : PetEvent.AI_TOP_FLIP_LEFT); // 【日志记录】
                     } else {
                         aiActionTicks--;
                     }
@@ -1303,7 +1387,7 @@ public class DesktopPet extends JFrame {
                 if (ceilingHangTicks > CEILING_HANG_MIN && tick % 30 == 0 && rng.nextInt(5) == 0) {
                     state = State.FALL; hasBounced=false; yVel = 0; frameIndex = 0;
                     ceilingHangTicks = 0;
-                    logAction("HANG_DROP","CEILING"); // 【日志记录】
+                    logEvent(PetEvent.HANG_DROP_CEILING); // 【日志记录】
                 }
                 return;
             }
@@ -1357,31 +1441,139 @@ public class DesktopPet extends JFrame {
     }
 
     // 面板可调用
-    public void startRunning() { if (!isVisible()) setVisible(true); if (!timer.isRunning()) timer.start(); }
-    public void stopRunning()  { if (timer.isRunning()) timer.stop(); }
-    public void setIdle()      { state = State.IDLE; frameIndex = 0; aiSuppressTicks = 60; logAction("ENTER_STATE","setIdle"); }
-    public void setWalk()      {
+    public void startRunning() {
+        if (!isVisible()) setVisible(true);
+        if (!timer.isRunning()) timer.start();
+        activityEngine.start();
+        activityStats.start(activityEngine);
+        if (detectAudio) audio.start();   // 没有 Loopback 设备时自动降级
+    }
+    public void stopRunning()  {
+        if (timer.isRunning()) timer.stop();
+        activityEngine.stop();
+        activityStats.stop();
+        audio.stop();
+    }
+    /** 收尾：停 tick 和后台采样、关控制接口和录音、同步保存提醒进度、让日志写完段尾；面板关闭时调用 */
+    @Override
+    public void dispose() {
+        stopRunning();
+        stopControlServer();
+        audio.close();                                  // 释放录音设备
+        // 在 EDT 上现编一份，最后一秒内的确认/开关也不丢
+        reminderStore.writeFinal(ReminderStore.encode(reminders));
+        recorder.close();
+        bubbleWin.dispose();
+        super.dispose();
+    }
+    public String getIdleProviderName() { return idleProvider.name(); }
+    public String getForegroundProviderName() { return foregroundProvider.name(); }
+    // —— 外部命令：面板/控制接口调用下面这些 public 方法，只进队列，下一 tick 开头按顺序执行 —— //
+    public void setIdle()      { submit(this::doIdle); }
+    public void setWalk()      { submit(this::doWalk); }
+    public void setFacingRight(boolean right) { submit(() -> doFacingRight(right)); }
+    /**
+     * 拖滑条时连续的 setSpeed 合并成一条，执行时取最新值。
+     * 只和队尾还没执行的那条 setSpeed 合并；中间隔了别的命令就另排一条，先后顺序不变
+     */
+    public void setSpeed(int s) {
+        if (isApplyingCommands()) { doSpeed(s); return; }
+        synchronized (commands) {
+            if (lastSubmitted instanceof SpeedCommand && ((SpeedCommand) lastSubmitted).merge(s)) return;
+        }
+        submit(new SpeedCommand(s));
+    }
+    public void setModeRoam()   { submit(this::doModeRoam); }
+    public void setModeManual() { submit(this::doModeManual); }
+    public void startClimbLeft()  { submit(this::doClimbLeft); }
+    public void startClimbRight() { submit(this::doClimbRight); }
+    public void startCeiling(boolean toRight) { submit(() -> doCeiling(toRight)); }
+    public void reloadSprites() { submit(this::doReloadSprites); }
+    /** 一批命令（里面调用上面的 public 方法）作为整体进队列，保证在同一 tick 里连续执行 */
+    public void submitBatch(java.util.List<Runnable> batch) {
+        submit(new Batch(batch));
+    }
+
+    // 一批命令按条数计入每 tick 的上限
+    private static final class Batch implements Runnable {
+        final java.util.List<Runnable> cmds;
+        Batch(java.util.List<Runnable> cmds) { this.cmds = cmds; }
+        @Override public void run() { for (Runnable r : cmds) r.run(); }
+    }
+
+    // 排队的 setSpeed；value 为 -1 表示 tick 已经取走，不能再合并
+    private final class SpeedCommand implements Runnable {
+        final java.util.concurrent.atomic.AtomicInteger value;
+        SpeedCommand(int s) { value = new java.util.concurrent.atomic.AtomicInteger(s); }
+        boolean merge(int s) {
+            for (int cur; (cur = value.get()) >= 0; ) {
+                if (value.compareAndSet(cur, s)) return true;
+            }
+            return false;
+        }
+        @Override public void run() {
+            int v = value.getAndSet(-1);
+            if (v >= 0) doSpeed(v);
+        }
+    }
+
+    // 执行期间再调 public 方法（批量命令）直接执行，不再进队列
+    private void submit(Runnable cmd) {
+        if (isApplyingCommands()) { cmd.run(); return; }
+        synchronized (commands) {
+            commands.add(cmd);
+            lastSubmitted = cmd;
+        }
+        // 停止运行时没有 tick 来取，单独排一次
+        if (!timer.isRunning()) SwingUtilities.invokeLater(this::applyCommands);
+    }
+
+    private boolean isApplyingCommands() {
+        return applyingCommands && SwingUtilities.isEventDispatchThread();
+    }
+
+    private void applyCommands() {
+        applyingCommands = true;
+        try {
+            Runnable cmd;
+            int budget = MAX_COMMANDS_PER_TICK;
+            while (budget > 0 && (cmd = commands.poll()) != null) {
+                budget -= (cmd instanceof Batch) ? Math.max(1, ((Batch) cmd).cmds.size()) : 1;
+                try {
+                    cmd.run();
+                } catch (RuntimeException e) {
+                    System.err.println("[DesktopPet] 命令执行失败: " + e);
+                }
+            }
+        } finally {
+            applyingCommands = false;
+        }
+    }
+
+    // —— 内部动作（AI 与命令队列调用，只在 EDT 上） —— //
+    private void doIdle()      { state = State.IDLE; frameIndex = 0; aiSuppressTicks = 60; logEvent(PetEvent.ENTER_STATE_SET_IDLE); }
+    private void doWalk()      {
         state = State.WALK; frameIndex = 0; aiSuppressTicks = 60;
         int base = Math.max(1, WALK_BASE * Math.max(1, speed));
         walkTarget = facingRight ? base : -base;
-        logAction("ENTER_STATE","setWalk");
+        logEvent(PetEvent.ENTER_STATE_SET_WALK);
     }
-    public void setFacingRight(boolean right) {
+    private void doFacingRight(boolean right) {
         facingRight = right; int v = Math.max(1, Math.abs(xVel)); xVel = right ? v : -v; aiSuppressTicks = 60;
         int base = Math.max(1, WALK_BASE * Math.max(1, speed));
         walkTarget = facingRight ? base : -base;
-        logAction("FACE", right ? "RIGHT" : "LEFT");
+        logEvent(right ? PetEvent.FACE_RIGHT : PetEvent.FACE_LEFT);
     }
-    public void setSpeed(int s) { speed = Math.max(1, Math.min(10, s)); logAction("SPEED", String.valueOf(s)); }
+    private void doSpeed(int s) { speed = Math.max(1, Math.min(10, s)); logEvent(PetEvent.SPEED, s); }
     public boolean isFacingRight() { return facingRight; }
     public State getPetState() { return state; }
 
     // 模式
-    public void setModeRoam()   { mode = Mode.ROAM;  logAction("MODE","ROAM"); }
-    public void setModeManual() { mode = Mode.MANUAL; aiSuppressTicks = 120; logAction("MODE","MANUAL"); }
+    private void doModeRoam()   { mode = Mode.ROAM;  logEvent(PetEvent.MODE_ROAM); }
+    private void doModeManual() { mode = Mode.MANUAL; aiSuppressTicks = 120; logEvent(PetEvent.MODE_MANUAL); }
 
     // —— 攀爬触发（先走到边缘，再抓墙 / 从顶则荡墙）——
-    public void startClimbLeft()  {
+    private void doClimbLeft()  {
         Rectangle wa = getWorkArea();
         if (state == State.CEILING) {
             state = State.SWING_LEFT;  frameIndex = 0; swingTicks = SWING_MIN_TICKS;
@@ -1395,9 +1587,9 @@ public class DesktopPet extends JFrame {
             }
         }
         aiSuppressTicks = 60;
-        logAction("CMD","startClimbLeft");
+        logEvent(PetEvent.CMD_START_CLIMB_LEFT);
     }
-    public void startClimbRight() {
+    private void doClimbRight() {
         Rectangle wa = getWorkArea();
         if (state == State.CEILING) {
             state = State.SWING_RIGHT; frameIndex = 0; swingTicks = SWING_MIN_TICKS;
@@ -1411,9 +1603,9 @@ public class DesktopPet extends JFrame {
             }
         }
         aiSuppressTicks = 60;
-        logAction("CMD","startClimbRight");
+        logEvent(PetEvent.CMD_START_CLIMB_RIGHT);
     }
-    public void startCeiling(boolean toRight) {
+    private void doCeiling(boolean toRight) {
         Rectangle wa = getWorkArea();
         winY = wa.y;
         winX = Math.max(wa.x, Math.min(winX, wa.x + wa.width - SIZE));
@@ -1421,7 +1613,7 @@ public class DesktopPet extends JFrame {
         state = State.CEILING; facingRight = toRight; frameIndex = 0;
         surfaceLatchTicks = 20; yVel = 0;
         aiSuppressTicks = 60;
-        logAction("CMD", toRight ? "startCeiling RIGHT" : "startCeiling LEFT");
+        logEvent(toRight ? PetEvent.CMD_START_CEILING_RIGHT : PetEvent.CMD_START_CEILING_LEFT);
     }
 
     // —— 新增：启动“睡前走角落计划” —— //
@@ -1442,18 +1634,18 @@ public class DesktopPet extends JFrame {
             yVel = Math.max(yVel, 4);
             frameIndex = 0;
             afterLand = AfterLand.SLEEP_PLAN_WALK_TO_CORNER;
-            logAction("IDLE_SLEEP_PLAN","FALL then walkToCorner " + (idleCornerRight?"RIGHT":"LEFT")); // 【日志记录】
+            logEvent(idleCornerRight ? PetEvent.IDLE_SLEEP_PLAN_FALL_RIGHT : PetEvent.IDLE_SLEEP_PLAN_FALL_LEFT); // 【日志记录】
         } else {
             // 已经在地面：直接走角落
             state = State.SLEEP_WALK_TO_CORNER;
             frameIndex = 0;
-            logAction("IDLE_SLEEP_PLAN","walkToCorner " + (idleCornerRight?"RIGHT":"LEFT")); // 【日志记录】
+            logEvent(idleCornerRight ? PetEvent.IDLE_SLEEP_PLAN_WALK_RIGHT : PetEvent.IDLE_SLEEP_PLAN_WALK_LEFT); // 【日志记录】
         }
     }
 
     // 刷新素材
-    public void reloadSprites() {
-        logAction("RELOAD_SPRITES", ""); // 【日志记录】
+    private void doReloadSprites() {
+        logEvent(PetEvent.RELOAD_SPRITES); // 【日志记录】
 
         flushIcons(idleLeft);  flushIcons(idleRight);
         flushIcons(walkLeft);  flushIcons(walkRight);
@@ -1470,64 +1662,50 @@ public class DesktopPet extends JFrame {
         flushIcons(landWakeLeft); flushIcons(landWakeRight);
         flushIcons(yawnLeft); flushIcons(yawnRight);
 
-        idleLeft     = loadIconsFromDir("sprites/idle_left");
-        idleRight    = loadIconsFromDir("sprites/idle_right");
-        walkLeft     = loadIconsFromDir("sprites/walk_left");
-        walkRight    = loadIconsFromDir("sprites/walk_right");
-        dragLeft     = loadIconsFromDir("sprites/drag_left");
-        dragRight    = loadIconsFromDir("sprites/drag_right");
-        fallLeft     = loadIconsFromDir("sprites/fall_left");
-        fallRight    = loadIconsFromDir("sprites/fall_right");
-        landLeft     = loadIconsFromDir("sprites/land_left");
-        landRight    = loadIconsFromDir("sprites/land_right");
-        climbLeft    = loadIconsFromDir("sprites/climb_left");
-        climbRight   = loadIconsFromDir("sprites/climb_right");
-        ceilingLeft  = loadIconsFromDir("sprites/ceiling_left");
-        ceilingRight = loadIconsFromDir("sprites/ceiling_right");
-        grabLeft     = loadIconsFromDir("sprites/grab_left");
-        grabRight    = loadIconsFromDir("sprites/grab_right");
-        swingLeft    = loadIconsFromDir("sprites/swing_left");
-        swingRight   = loadIconsFromDir("sprites/swing_right");
-        sleepFrames  = loadIconsFromDir("sprites/sleep");
-        wakeFrames   = loadIconsFromDir("sprites/wake");
-
-        dragWakeLeft = loadIconsFromDir("sprites/drag_wake_left");
-        dragWakeRight= loadIconsFromDir("sprites/drag_wake_right");
-        fallWakeLeft = loadIconsFromDir("sprites/fall_wake_left");
-        fallWakeRight= loadIconsFromDir("sprites/fall_wake_right");
-        landWakeLeft = loadIconsFromDir("sprites/land_wake_left");
-        landWakeRight= loadIconsFromDir("sprites/land_wake_right");
-
-        yawnLeft     = loadIconsFromDir("sprites/yawn_left");
-        yawnRight    = loadIconsFromDir("sprites/yawn_right");
+        // 刷新素材：重新扫描目录并重建清单（新加的 PNG 才能生效）
+        sprites = SpriteLibrary.rescan(Paths.get("sprites"), SIZE);
+        loadAllSprites();
 
         frameIndex = 0;
         tick = 0;
         canvas.repaint();
     }
 
-    // 目录加载 PNG（按文件名排序），缩放到 SIZE×SIZE
-    private ImageIcon[] loadIconsFromDir(String dirPath) {
-        try {
-            Path dir = Paths.get(dirPath);
-            List<Path> files = new ArrayList<>();
-            try (Stream<Path> s = Files.list(dir)) {
-                s.filter(p -> p.getFileName().toString().toLowerCase().endsWith(".png"))
-                 .sorted()
-                 .forEach(files::add);
-            }
-            if (files.isEmpty()) throw new IllegalStateException("No png in " + dirPath);
+    // 从素材库取出所有帧组；sprites 为空时先按清单加载
+    private void loadAllSprites() {
+        if (sprites == null) sprites = SpriteLibrary.load(Paths.get("sprites"), SIZE);
+
+        idleLeft     = sprites.frames("idle_left");
+        idleRight    = sprites.frames("idle_right");
+        walkLeft     = sprites.frames("walk_left");
+        walkRight    = sprites.frames("walk_right");
+        dragLeft     = sprites.frames("drag_left");
+        dragRight    = sprites.frames("drag_right");
+        fallLeft     = sprites.frames("fall_left");
+        fallRight    = sprites.frames("fall_right");
+        landLeft     = sprites.frames("land_left");
+        landRight    = sprites.frames("land_right");
+        climbLeft    = sprites.frames("climb_left");
+        climbRight   = sprites.frames("climb_right");
+        ceilingLeft  = sprites.frames("ceiling_left");
+        ceilingRight = sprites.frames("ceiling_right");
+        grabLeft     = sprites.frames("grab_left");
+        grabRight    = sprites.frames("grab_right");
+        swingLeft    = sprites.frames("swing_left");
+        swingRight   = sprites.frames("swing_right");
+        sleepFrames  = sprites.frames("sleep");
+        wakeFrames   = sprites.frames("wake");
+
+        dragWakeLeft = sprites.frames("drag_wake_left");
+        dragWakeRight= sprites.frames("drag_wake_right");
+        fallWakeLeft = sprites.frames("fall_wake_left");
+        fallWakeRight= sprites.frames("fall_wake_right");
+        landWakeLeft = sprites.frames("land_wake_left");
+        landWakeRight= sprites.frames("land_wake_right");
 
-            List<ImageIcon> icons = new ArrayList<>();
-            for (Path p : files) {
-                BufferedImage bi = javax.imageio.ImageIO.read(p.toFile());
-                Image scaled = bi.getScaledInstance(SIZE, SIZE, Image.SCALE_SMOOTH);
-                icons.add(new ImageIcon(scaled));
-            }
-            return icons.toArray(new ImageIcon[0]);
-        } catch (Exception e) {
-            throw new RuntimeException("Load failed: " + dirPath, e);
-        }
+        // —— 新增：打哈欠 —— //
+        yawnLeft     = sprites.frames("yawn_left");
+        yawnRight    = sprites.frames("yawn_right");
     }
 
     // 释放图像缓存
@@ -1553,106 +1731,8 @@ public class DesktopPet extends JFrame {
                 b.height - in.top - in.bottom
         );
     }
-    // ========== 全屏检测（JNA：User32 + GetForegroundWindow + GetWindowRect） ==========
-    private boolean isForegroundFullscreen() {
-        try {
-            WinRect r = getForegroundRect();
-            if (r == null) return false;
-
-            GraphicsDevice gd = getGraphicsConfiguration() != null
-                    ? getGraphicsConfiguration().getDevice()
-                    : GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice();
-
-            Rectangle sb = gd.getDefaultConfiguration().getBounds();
-            Insets in = Toolkit.getDefaultToolkit().getScreenInsets(gd.getDefaultConfiguration());
-            Rectangle work = new Rectangle(
-                    sb.x + in.left, sb.y + in.top,
-                    sb.width - in.left - in.right,
-                    sb.height - in.top - in.bottom
-            );
-            // 允许2像素容差
-            return Math.abs(r.x - work.x) <= 2 &&
-                   Math.abs(r.y - work.y) <= 2 &&
-                   Math.abs(r.w - work.width) <= 2 &&
-                   Math.abs(r.h - work.height) <= 2;
-        } catch (Throwable t) {
-            return false;
-        }
-    }
-
-    private WinRect getForegroundRect() {
-        com.sun.jna.platform.win32.WinDef.HWND hwnd =
-            com.sun.jna.platform.win32.User32.INSTANCE.GetForegroundWindow();
-        if (hwnd == null) return null;
-
-        com.sun.jna.platform.win32.WinDef.RECT rc =
-            new com.sun.jna.platform.win32.WinDef.RECT();
-
-        boolean ok = com.sun.jna.platform.win32.User32.INSTANCE.GetWindowRect(hwnd, rc);
-        if (!ok) return null;
-
-        WinRect wr = new WinRect();
-        wr.x = rc.left; wr.y = rc.top;
-        wr.w = rc.right - rc.left; wr.h = rc.bottom - rc.top;
-        return wr;
-    }
 
 
-    // ========== 音频探测（尽力而为：捕获系统Loopback，如 Stereo Mix / What U Hear） ==========
-    private void startAudioProbeThread() {
-        new Thread(() -> {
-            javax.sound.sampled.Mixer.Info[] infos = javax.sound.sampled.AudioSystem.getMixerInfo();
-            javax.sound.sampled.TargetDataLine line = null;
-            for (javax.sound.sampled.Mixer.Info mi : infos) {
-                String name = mi.getName().toLowerCase();
-                String desc = mi.getDescription().toLowerCase();
-                if (name.contains("stereo") || name.contains("mix") || name.contains("loopback")
-                        || desc.contains("stereo") || desc.contains("mix") || desc.contains("loopback")
-                        || name.contains("what u hear") || desc.contains("what u hear")) {
-                    try {
-                        javax.sound.sampled.Mixer m = javax.sound.sampled.AudioSystem.getMixer(mi);
-                        javax.sound.sampled.AudioFormat fmt = new javax.sound.sampled.AudioFormat(44100, 16, 2, true, false);
-                        javax.sound.sampled.DataLine.Info info = new javax.sound.sampled.DataLine.Info(javax.sound.sampled.TargetDataLine.class, fmt);
-                        line = (javax.sound.sampled.TargetDataLine) m.getLine(info);
-                        line.open(fmt, 44100); // 1秒缓冲
-                        line.start();
-                        audioProbeAvailable = true;
-                        break;
-                    } catch (Exception ignore) { line = null; }
-                }
-            }
-
-            if (!audioProbeAvailable || line == null) {
-                audioProbeAvailable = false;
-                return; // 没有Loopback设备，降级
-            }
-
-            byte[] buf = new byte[4096];
-            while (true) {
-                try {
-                    int n = line.read(buf, 0, buf.length);
-                    if (n > 0) {
-                        // 简单 RMS
-                        long sum = 0;
-                        int samples = n / 2; // 16-bit
-                        for (int i = 0; i < n; i += 2) {
-                            int lo = buf[i] & 0xff;
-                            int hi = buf[i+1];
-                            int v = (short)((hi << 8) | lo);
-                            sum += (long)v * v;
-                        }
-                        double rms = Math.sqrt(sum / Math.max(1.0, samples));
-                        // 归一化到 0..1（粗略）
-                        audioLevelRms = Math.min(1.0, rms / 20000.0);
-                    }
-                } catch (Throwable t) {
-                    audioProbeAvailable = false;
-                    break;
-                }
-            }
-        }, "AudioProbe").start();
-    }
-
     // 让气泡跟随宠物，并保证在当前显示器工作区内；优先顺序：上→下→左→右；最后兜底夹取到工作区
     private void positionBubble() {
         if (!bubbleVisible) return;
@@ -1714,32 +1794,73 @@ public class DesktopPet extends JFrame {
         bubbleWin.setLocation(bx, by);
     }
 
-    public void setReminderEnabled(boolean on) { this.reminderEnabled = on; }
+    public void setReminderEnabled(boolean on) { reminders.setEnabled(on); }
+    public boolean isReminderEnabled() { return reminders.isEnabled(); }
+    public void setReminderTypeEnabled(String id, boolean on) {
+        reminders.setEnabled(id, on);
+        if (!on && shownReminder != null && shownReminder.id.equals(id) && bubbleVisible) {
+            hideBubble();
+            shownReminder = null;
+        }
+    }
+    public boolean isReminderTypeEnabled(String id) {
+        ReminderScheduler.Reminder r = reminders.get(id);
+        return r != null && r.isEnabled();
+    }
+    /** 自定义提醒（文字气泡）；同 id 替换 */
+    public void addCustomReminder(String id, String text, int minutes, int priority) {
+        reminders.addCustom(id, text, minutes * 60_000L, priority);
+    }
+    public void removeReminder(String id) { reminders.remove(id); }
+    public ReminderScheduler getReminderScheduler() { return reminders; }
     public void resetReminder() {
-        this.activeUseTicks = 0;
-        this.waitingClick = false;
-        if (bubbleVisible) { bubbleWin.setVisible(false); bubbleVisible = false; }
+        reminders.resetAll();
+        shownReminder = null;
+        if (bubbleVisible && bubbleIsReminder) { bubbleWin.setVisible(false); bubbleVisible = false; }
     }
-    public void setDetectFullscreen(boolean on) { this.detectFullscreen = on; }
-    public void setDetectAudio(boolean on) { this.detectAudio = on; }
-    public int  getElapsedActiveMinutes() { return activeUseTicks / (FPS * 60); }
-    public String getNextRemindLabel() { return (nextRemind == RemindKind.STAND) ? "起来！" : "坐下！"; }
-    public int getElapsedActiveSeconds() { return activeUseTicks / FPS; }
+    public void setDetectFullscreen(boolean on) { activityEngine.setUseFullscreen(on); }
+    public void setDetectAudio(boolean on) {
+        this.detectAudio = on;
+        activityEngine.setUseAudio(on);
+        if (on && timer.isRunning()) audio.start(); else if (!on) audio.stop();
+    }
+    // 以下“活跃用时/进度”指站/坐这一条本轮累计的活跃时间；这一条被 removeReminder 删掉后按 0 / 空串算
+    public int  getElapsedActiveMinutes() { return getElapsedActiveSeconds() / 60; }
+    public String getNextRemindLabel() {
+        ReminderScheduler.Reminder r = reminders.get(ReminderScheduler.STAND);
+        return r == null ? "" : r.label();
+    }
+    public int getElapsedActiveSeconds() { return (int) (reminders.elapsedMs(ReminderScheduler.STAND) / 1000); }
     public String getElapsedActiveHMS() {
         int s = getElapsedActiveSeconds();
         int h = s / 3600, m = (s % 3600) / 60, sec = s % 60;
         return String.format("%02d:%02d:%02d", h, m, sec);
     }
-    public long getIdleGapSeconds() { return dbgIdleGapMs / 1000; }
-    public boolean isUserActiveByInput() { return dbgUserActiveByInput; }
-    public boolean isFullscreenActive() { return dbgFullscreen; }
-    public boolean isAudioBusy() { return dbgAudioBusy; }
-    public boolean isUserActive() { return dbgUserActive; }
-    public boolean isAudioProbeAvailable() { return audioProbeAvailable; }
-    public double getAudioLevelRms() { return audioLevelRms; }
-    public int getReminderSecondsTotal() { return REMIND_MINUTES * 60; }
+    /** 状态变化时在 EDT 上回调（频率不超过 -Dpet.status.maxHz，默认 4） */
+    public void addStatusListener(java.util.function.Consumer<PetStatus> l) { statusListeners.add(l); }
+    public void removeStatusListener(java.util.function.Consumer<PetStatus> l) { statusListeners.remove(l); }
+    /** 最近一次发布的状态，任何线程可读 */
+    public PetStatus getStatus() { return status; }
+    // 以下从快照读，任何线程调用都拿到一组一致的值
+    public ActivitySnapshot getActivitySnapshot() { return activityEngine.snapshot(); }
+    public ActivityEngine getActivityEngine() { return activityEngine; }
+    public ActivityStats getActivityStats() { return activityStats; }
+    public long getIdleGapSeconds() { return activityEngine.snapshot().inputIdleMs() / 1000; }
+    public boolean isUserActiveByInput() { return activityEngine.snapshot().userActiveByInput(); }
+    public boolean isFullscreenActive() { return activityEngine.snapshot().fullscreen(); }
+    public boolean isAudioBusy() { return activityEngine.snapshot().audioActive(); }
+    public boolean isUserActive() { return activityEngine.snapshot().userActive(); }
+    public boolean isAudioProbeAvailable() { return audio.isAvailable(); }
+    public double getAudioLevelRms() { return audio.getLevel(); }
+    public AudioActivityDetector getAudioDetector() { return audio; }
+    public int getReminderSecondsTotal() {
+        ReminderScheduler.Reminder r = reminders.get(ReminderScheduler.STAND);
+        return r == null ? 0 : (int) (r.intervalMs() / 1000);
+    }
     public int getProgressPercent() {
-        return Math.min(100, (int)Math.round(activeUseTicks * 100.0 / REMIND_TICKS));
+        ReminderScheduler.Reminder r = reminders.get(ReminderScheduler.STAND);
+        if (r == null) return 0;
+        return Math.min(100, (int)Math.round(reminders.elapsedMs(ReminderScheduler.STAND) * 100.0 / r.intervalMs()));
     }
     private Rectangle getWorkAreaRect() {
         GraphicsConfiguration gc = getGraphicsConfiguration();
@@ -0,0 +1,136 @@
+/**
+ * 日志事件过滤：每个 PetEvent 一个级别、一个采样比（每 N 条留 1 条）、一个令牌桶限速（条/秒 + 突发）。
+ * 配置改动时把所有规则编译成 byte[] mode，logEvent 里先查一次 mode[ordinal]：
+ * 绝大多数事件直接 PASS / DROP，只有配了采样或限速的才走计数器和令牌桶。
+ * 只在 tick 线程（EDT）上调用；面板也在 EDT 上改配置。
+ */
+public final class EventFilter {
+
+    private static final byte DROP = 0, PASS = 1, CHECK = 2;
+
+    private static final PetEvent[] EVENTS = PetEvent.values();
+    private static final int N = EVENTS.length;
+
+    private byte[] mode = new byte[N];
+
+    // —— 配置 —— //
+    private PetEvent.Level minLevel = PetEvent.Level.DEBUG;
+    private final PetEvent.Level[] level = new PetEvent.Level[N];
+    private final int[]    sampleEvery = new int[N];       // <=1 表示不采样
+    private final double[] ratePerSec  = new double[N];    // <=0 表示不限速
+    private final double[] burst       = new double[N];
+
+    // —— 运行态 —— //
+    private final int[]    sampleCounter = new int[N];
+    private final double[] tokens        = new double[N];
+    private final long[]   lastRefill    = new long[N];
+    private final long[]   filtered      = new long[N];
+
+    /** 默认全部放行：PetLogQuery 的停留时长/转移统计要靠完整的 ENTER_STATE，采样和限速都得显式打开 */
+    public EventFilter() {
+        for (int i = 0; i < N; i++) level[i] = EVENTS[i].level;
+        compile();
+    }
+
+    /**
+     * -Dpet.log.level=DEBUG|INFO
+     * -Dpet.log.sample.AI_DECISION_IDLE=10   （每 10 条留 1 条）
+     * -Dpet.log.rate.AI_WALL_PAUSE=2         （每秒 2 条，突发取 4 倍）
+     */
+    public static EventFilter fromSystemProperties() {
+        EventFilter f = new EventFilter();
+        String lv = System.getProperty("pet.log.level");
+        if (lv != null) {
+            try {
+                f.setMinLevel(PetEvent.Level.valueOf(lv.trim().toUpperCase()));
+            } catch (IllegalArgumentException e) {
+                System.err.println("[EventFilter] 未知的 pet.log.level: " + lv);
+            }
+        }
+        for (PetEvent ev : EVENTS) {
+            String s = System.getProperty("pet.log.sample." + ev.name());
+            String r = System.getProperty("pet.log.rate." + ev.name());
+            try {
+                if (s != null) f.setSampling(ev, Integer.parseInt(s.trim()));
+                if (r != null) {
+                    double rate = Double.parseDouble(r.trim());
+                    f.setRateLimit(ev, rate, rate * 4);
+                }
+            } catch (NumberFormatException e) {
+                System.err.println("[EventFilter] 配置无效 " + ev + ": " + e.getMessage());
+            }
+        }
+        return f;
+    }
+
+    /** 这条事件要不要交给 recorder；被拦下的计数 */
+    public boolean admit(PetEvent ev) {
+        int i = ev.ordinal();
+        byte m = mode[i];
+        if (m == PASS) return true;
+        if (m == DROP || !check(i)) { filtered[i]++; return false; }
+        return true;
+    }
+
+    private boolean check(int i) {
+        int every = sampleEvery[i];
+        if (every > 1) {
+            int c = sampleCounter[i] + 1;
+            if (c >= every) c = 0;
+            sampleCounter[i] = c;
+            if (c != 1 % every) return false;      // 每轮第一条留下
+        }
+        double rate = ratePerSec[i];
+        if (rate > 0) {
+            long now = System.nanoTime();
+            double t = tokens[i] + (now - lastRefill[i]) * rate / 1e9;
+            lastRefill[i] = now;
+            if (t > burst[i]) t = burst[i];
+            if (t < 1.0) { tokens[i] = t; return false; }
+            tokens[i] = t - 1.0;
+        }
+        return true;
+    }
+
+    private void compile() {
+        byte[] m = new byte[N];
+        long now = System.nanoTime();
+        for (int i = 0; i < N; i++) {
+            if (level[i].compareTo(minLevel) < 0) m[i] = DROP;
+            else if (sampleEvery[i] > 1 || ratePerSec[i] > 0) m[i] = CHECK;
+            else m[i] = PASS;
+            sampleCounter[i] = 0;
+            tokens[i] = Math.max(1.0, burst[i]);
+            lastRefill[i] = now;
+        }
+        mode = m;
+    }
+
+    // ===== 配置（面板 / 系统属性）=====
+    public void setMinLevel(PetEvent.Level lv) { minLevel = lv; compile(); }
+    public PetEvent.Level getMinLevel() { return minLevel; }
+
+    public void setLevel(PetEvent ev, PetEvent.Level lv) { level[ev.ordinal()] = lv; compile(); }
+    public PetEvent.Level getLevel(PetEvent ev) { return level[ev.ordinal()]; }
+
+    /** every <= 1 关闭采样 */
+    public void setSampling(PetEvent ev, int every) { sampleEvery[ev.ordinal()] = Math.max(0, every); compile(); }
+    public int getSampling(PetEvent ev) { return sampleEvery[ev.ordinal()]; }
+
+    /** perSec <= 0 关闭限速；burst 至少 1 */
+    public void setRateLimit(PetEvent ev, double perSec, double burstSize) {
+        int i = ev.ordinal();
+        ratePerSec[i] = Math.max(0, perSec);
+        burst[i] = Math.max(1.0, burstSize);
+        compile();
+    }
+    public double getRatePerSec(PetEvent ev) { return ratePerSec[ev.ordinal()]; }
+    public double getBurst(PetEvent ev) { return burst[ev.ordinal()]; }
+
+    public long getFilteredCount(PetEvent ev) { return filtered[ev.ordinal()]; }
+    public long getFilteredTotal() {
+        long s = 0;
+        for (long v : filtered) s += v;
+        return s;
+    }
+}
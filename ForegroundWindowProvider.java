@@ -0,0 +1,160 @@
+import com.sun.jna.NativeLong;
+import com.sun.jna.Platform;
+import com.sun.jna.Pointer;
+import com.sun.jna.platform.unix.X11;
+import com.sun.jna.platform.win32.User32;
+import com.sun.jna.platform.win32.WinDef;
+import com.sun.jna.ptr.IntByReference;
+import com.sun.jna.ptr.NativeLongByReference;
+import com.sun.jna.ptr.PointerByReference;
+
+import java.awt.Rectangle;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 前台（活动）窗口的屏幕矩形。由后台约 1Hz 采样（见 DesktopPet），tick 里不做原生调用。
+ *   Windows  GetForegroundWindow + GetWindowRect
+ *   X11      根窗口的 _NET_ACTIVE_WINDOW + XGetGeometry / XTranslateCoordinates
+ *   Fake     手动设置（调试 / 测试用）
+ * 平台都不支持时 detect() 返回 NONE（永远“不知道”）。
+ */
+public interface ForegroundWindowProvider extends AutoCloseable {
+
+    /** 前台窗口的屏幕坐标矩形；取不到返回 null */
+    Rectangle foregroundBounds();
+
+    String name();
+
+    @Override default void close() { }
+
+    ForegroundWindowProvider NONE = new ForegroundWindowProvider() {
+        @Override public Rectangle foregroundBounds() { return null; }
+        @Override public String name() { return "none"; }
+    };
+
+    static ForegroundWindowProvider detect() {
+        try {
+            if (Platform.isWindows()) return new Windows();
+            if (Platform.isX11() && System.getenv("DISPLAY") != null) return new X11Active();
+        } catch (Throwable t) {
+            System.err.println("[ForegroundWindowProvider] 原生实现不可用，全屏检测关闭: " + t);
+        }
+        return NONE;
+    }
+
+    /** 前台窗口盖满整个屏幕或整个工作区（各允许 2 像素误差）就算全屏 */
+    static boolean isFullscreen(Rectangle fg, Rectangle screen, Rectangle work) {
+        return fg != null && (near(fg, screen) || near(fg, work));
+    }
+
+    private static boolean near(Rectangle a, Rectangle b) {
+        return b != null
+                && Math.abs(a.x - b.x) <= 2 && Math.abs(a.y - b.y) <= 2
+                && Math.abs(a.width - b.width) <= 2 && Math.abs(a.height - b.height) <= 2;
+    }
+
+    // ===== Windows =====
+    final class Windows implements ForegroundWindowProvider {
+        private final WinDef.RECT rc = new WinDef.RECT();
+
+        Windows() {
+            User32.INSTANCE.GetForegroundWindow();   // 先调一次，加载失败就在这里抛
+        }
+
+        @Override public synchronized Rectangle foregroundBounds() {
+            WinDef.HWND hwnd = User32.INSTANCE.GetForegroundWindow();
+            if (hwnd == null || !User32.INSTANCE.GetWindowRect(hwnd, rc)) return null;
+            return new Rectangle(rc.left, rc.top, rc.right - rc.left, rc.bottom - rc.top);
+        }
+
+        @Override public String name() { return "windows"; }
+    }
+
+    // ===== X11（EWMH 窗口管理器）=====
+    final class X11Active implements ForegroundWindowProvider {
+        private static final X11 x = X11.INSTANCE;
+
+        // 活动窗口随时可能被关掉，查询会得到 BadWindow；Xlib 默认的错误处理会直接退出进程，
+        // 所以装一个链式处理器：我们自己打开的连接（可能有几条）上的错误吞掉，其它（AWT 的）交还给原处理器。
+        // XSetErrorHandler 是进程级的，整个进程只装一次，之后只增删 OURS；关掉的连接等 XCloseDisplay 返回后才移出
+        private static final Set<Pointer> OURS = ConcurrentHashMap.newKeySet();
+        private static X11.XErrorHandler previous;
+        private static X11.XErrorHandler handler;
+
+        private final X11.Display dpy;
+        private final X11.Window root;
+        private final X11.Atom activeAtom;
+        private boolean closed;
+
+        X11Active() {
+            dpy = x.XOpenDisplay(null);
+            if (dpy == null) throw new IllegalStateException("XOpenDisplay 失败");
+            root = x.XDefaultRootWindow(dpy);
+            activeAtom = x.XInternAtom(dpy, "_NET_ACTIVE_WINDOW", false);
+            installErrorHandler(dpy);
+        }
+
+        private static synchronized void installErrorHandler(X11.Display d) {
+            OURS.add(d.getPointer());
+            if (handler != null) return;
+            handler = (display, ev) -> {
+                if (display != null && OURS.contains(display.getPointer())) return 0;
+                return previous == null ? 0 : previous.apply(display, ev);
+            };
+            previous = x.XSetErrorHandler(handler);
+        }
+
+        @Override public synchronized Rectangle foregroundBounds() {
+            if (closed) return null;
+            X11.Window win = activeWindow();
+            if (win == null) return null;
+            X11.WindowByReference rootRet = new X11.WindowByReference();
+            IntByReference gx = new IntByReference(), gy = new IntByReference();
+            IntByReference w = new IntByReference(), h = new IntByReference();
+            IntByReference border = new IntByReference(), depth = new IntByReference();
+            if (x.XGetGeometry(dpy, win, rootRet, gx, gy, w, h, border, depth) == 0) return null;
+            IntByReference ax = new IntByReference(), ay = new IntByReference();
+            X11.WindowByReference child = new X11.WindowByReference();
+            if (!x.XTranslateCoordinates(dpy, win, root, 0, 0, ax, ay, child)) return null;
+            return new Rectangle(ax.getValue(), ay.getValue(), w.getValue(), h.getValue());
+        }
+
+        private X11.Window activeWindow() {
+            X11.AtomByReference type = new X11.AtomByReference();
+            IntByReference format = new IntByReference();
+            NativeLongByReference items = new NativeLongByReference(), after = new NativeLongByReference();
+            PointerByReference prop = new PointerByReference();
+            int rc = x.XGetWindowProperty(dpy, root, activeAtom, new NativeLong(0), new NativeLong(1), false,
+                    X11.XA_WINDOW, type, format, items, after, prop);
+            Pointer p = prop.getValue();
+            try {
+                if (rc != X11.Success || p == null || items.getValue().longValue() < 1) return null;
+                long id = p.getNativeLong(0).longValue();   // format 32 的属性在客户端按 C long 存
+                return id == 0 ? null : new X11.Window(id);
+            } finally {
+                if (p != null) x.XFree(p);
+            }
+        }
+
+        @Override public String name() { return "x11"; }
+
+        @Override public synchronized void close() {
+            if (closed) return;
+            closed = true;
+            x.XCloseDisplay(dpy);
+            OURS.remove(dpy.getPointer());
+        }
+    }
+
+    // ===== 假实现 =====
+    final class Fake implements ForegroundWindowProvider {
+        private volatile Rectangle bounds;
+
+        public Fake(Rectangle bounds) { this.bounds = bounds; }
+        public void setBounds(Rectangle r) { bounds = r; }
+
+        @Override public Rectangle foregroundBounds() { return bounds; }
+        @Override public String name() { return "fake"; }
+    }
+}
@@ -0,0 +1,152 @@
+import com.sun.jna.Library;
+import com.sun.jna.Native;
+import com.sun.jna.NativeLong;
+import com.sun.jna.Platform;
+import com.sun.jna.Structure;
+import com.sun.jna.platform.unix.X11;
+import com.sun.jna.platform.win32.Kernel32;
+import com.sun.jna.platform.win32.User32;
+import com.sun.jna.platform.win32.WinUser;
+
+import java.awt.AWTEvent;
+import java.awt.MouseInfo;
+import java.awt.Point;
+import java.awt.PointerInfo;
+import java.awt.Toolkit;
+import java.awt.event.InputEvent;
+
+/**
+ * 系统级“多久没有键鼠输入”的来源。由后台低频轮询（见 BackgroundScheduler），tick 里不调用。
+ *   Windows  GetLastInputInfo
+ *   X11      XScreenSaverQueryInfo（libXss）
+ *   Awt      兜底：轮询鼠标指针位置 + 本进程窗口收到的输入事件
+ *   Fake     手动设置（调试 / 测试用）
+ * -Dpet.idle.provider=windows|x11|awt 可以强制指定。
+ */
+public interface IdleTimeProvider extends AutoCloseable {
+
+    /** 距最近一次系统级输入的毫秒数；取不到时返回 -1 */
+    long idleMillis();
+
+    String name();
+
+    @Override default void close() { }
+
+    /** 按平台挑一个能用的实现，都不行就用 Awt 兜底 */
+    static IdleTimeProvider detect() {
+        String want = System.getProperty("pet.idle.provider", "").toLowerCase();
+        try {
+            if (want.equals("windows") || want.isEmpty() && Platform.isWindows()) return new Windows();
+            if (want.equals("x11") || want.isEmpty() && Platform.isX11() && System.getenv("DISPLAY") != null) return new X11Idle();
+        } catch (Throwable t) {
+            System.err.println("[IdleTimeProvider] 原生实现不可用，改用 AWT 兜底: " + t);
+        }
+        return new Awt();
+    }
+
+    // ===== Windows =====
+    final class Windows implements IdleTimeProvider {
+        private final WinUser.LASTINPUTINFO info = new WinUser.LASTINPUTINFO();
+
+        Windows() {
+            if (idleMillis() < 0) throw new IllegalStateException("GetLastInputInfo 失败");
+        }
+
+        @Override public long idleMillis() {
+            if (!User32.INSTANCE.GetLastInputInfo(info)) return -1;
+            // 两个都是 32 位毫秒计数，49 天回绕，用 int 相减即可
+            return (Kernel32.INSTANCE.GetTickCount() - info.dwTime) & 0xFFFFFFFFL;
+        }
+
+        @Override public String name() { return "windows"; }
+    }
+
+    // ===== X11（libXss）=====
+    final class X11Idle implements IdleTimeProvider {
+        interface Xss extends Library {
+            boolean XScreenSaverQueryExtension(X11.Display dpy, int[] eventBase, int[] errorBase);
+            XScreenSaverInfo XScreenSaverAllocInfo();
+            int XScreenSaverQueryInfo(X11.Display dpy, X11.Drawable drawable, XScreenSaverInfo info);
+        }
+
+        @Structure.FieldOrder({"window", "state", "kind", "tilOrSince", "idle", "eventMask"})
+        public static class XScreenSaverInfo extends Structure {
+            public NativeLong window;
+            public int state;
+            public int kind;
+            public NativeLong tilOrSince;
+            public NativeLong idle;
+            public NativeLong eventMask;
+        }
+
+        private final Xss xss;
+        private final X11.Display dpy;
+        private final X11.Window root;
+        private final XScreenSaverInfo info;
+
+        X11Idle() {
+            xss = Native.load("Xss", Xss.class);
+            dpy = X11.INSTANCE.XOpenDisplay(null);
+            if (dpy == null) throw new IllegalStateException("XOpenDisplay 失败");
+            if (!xss.XScreenSaverQueryExtension(dpy, new int[1], new int[1])) {
+                X11.INSTANCE.XCloseDisplay(dpy);
+                throw new IllegalStateException("X 服务器不支持 MIT-SCREEN-SAVER");
+            }
+            root = X11.INSTANCE.XDefaultRootWindow(dpy);
+            info = xss.XScreenSaverAllocInfo();
+        }
+
+        @Override public synchronized long idleMillis() {
+            if (xss.XScreenSaverQueryInfo(dpy, root, info) == 0) return -1;
+            info.read();
+            return info.idle.longValue();
+        }
+
+        @Override public String name() { return "x11"; }
+
+        @Override public synchronized void close() {
+            X11.INSTANCE.XFree(info.getPointer());
+            X11.INSTANCE.XCloseDisplay(dpy);
+        }
+    }
+
+    // ===== AWT 兜底 =====
+    // 指针位置是系统级的（别的程序里动鼠标也能看到）；键盘只能看到发给本进程窗口的，
+    // 监听器里直接用事件自带的 getWhen()，不额外读时钟
+    final class Awt implements IdleTimeProvider {
+        private volatile long lastInputMs = System.currentTimeMillis();
+        private Point lastPointer;
+
+        Awt() {
+            Toolkit.getDefaultToolkit().addAWTEventListener(ev -> {
+                if (ev instanceof InputEvent) lastInputMs = ((InputEvent) ev).getWhen();
+            }, AWTEvent.KEY_EVENT_MASK | AWTEvent.MOUSE_EVENT_MASK | AWTEvent.MOUSE_WHEEL_EVENT_MASK);
+        }
+
+        @Override public long idleMillis() {
+            long now = System.currentTimeMillis();
+            try {
+                PointerInfo pi = MouseInfo.getPointerInfo();
+                Point p = pi == null ? null : pi.getLocation();
+                if (p != null && !p.equals(lastPointer)) {
+                    if (lastPointer != null) lastInputMs = now;
+                    lastPointer = p;
+                }
+            } catch (Exception ignore) { }     // 无头环境
+            return Math.max(0, now - lastInputMs);
+        }
+
+        @Override public String name() { return "awt"; }
+    }
+
+    // ===== 假实现 =====
+    final class Fake implements IdleTimeProvider {
+        private volatile long idleMs;
+
+        public Fake(long idleMs) { this.idleMs = idleMs; }
+        public void setIdleMillis(long ms) { idleMs = ms; }
+
+        @Override public long idleMillis() { return idleMs; }
+        @Override public String name() { return "fake"; }
+    }
+}
@@ -0,0 +1,238 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * logs/ 目录的后台清洁工（低优先级守护线程）：
+ *   - 把已经关闭的日志段压成 .gz（先写 .gz.tmp 再改名，压完删原文件）
+ *   - 按保留策略删最老的段：总大小、文件数、天数，任一超限就删
+ * 只管“确认已经写完”的段：带段尾的（PetRecorder 正常关段时写）和已经压好的 .gz。
+ * 没有段尾的旧文件（早期版本的日志、崩溃留下的段）默认不动，adoptUntrailed 打开才一起压缩/清理。
+ * 正在写的段永远不碰：本进程里登记在 LIVE 的段直接跳过，其它进程的段靠写的一方持有的文件锁识别
+ * （多只宠物共用 logs/ 时互不误删）。
+ */
+public final class LogJanitor {
+
+    private final Path dir;
+    private final long maxTotalBytes;
+    private final int  maxFiles;
+    private final long maxAgeMs;
+    private final boolean compress;
+    private final boolean adoptUntrailed;
+    private Path active;            // 本 recorder 正在写的段
+
+    // 本进程所有 recorder 正在写的段。同一进程里不能靠 tryLock 探测：
+    // 关掉探测用的通道会连带释放本进程在这个文件上的全部锁
+    private static final Set<Path> LIVE = ConcurrentHashMap.newKeySet();
+
+    private final ExecutorService exec = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "LogJanitor");
+        t.setDaemon(true);
+        t.setPriority(Thread.MIN_PRIORITY);
+        return t;
+    });
+
+    public LogJanitor(Path dir, long maxTotalBytes, int maxFiles, long maxAgeMs, boolean compress,
+                      boolean adoptUntrailed) {
+        this.dir = dir;
+        this.maxTotalBytes = maxTotalBytes;
+        this.maxFiles = maxFiles;
+        this.maxAgeMs = maxAgeMs;
+        this.compress = compress;
+        this.adoptUntrailed = adoptUntrailed;
+    }
+
+    /** 换成新的活动段（null = 不再写）；只由写线程调用 */
+    public synchronized void setActive(Path p) {
+        if (active != null) LIVE.remove(key(active));
+        active = p;
+        if (p != null) LIVE.add(key(p));
+    }
+
+    /** 刚关闭的段（本 recorder 亲手写完段尾）：压缩后做一次保留清理 */
+    public void segmentClosed(Path p) {
+        submit(() -> {
+            if (compress) gzip(p);
+            prune();
+        });
+    }
+
+    /** 启动时：把以前会话正常关闭但还没压的段补压，并按保留策略清理 */
+    public void sweep() {
+        submit(() -> {
+            if (compress) {
+                for (Path p : listSegments()) {
+                    if (!p.getFileName().toString().endsWith(".gz") && managed(p)) gzip(p);
+                }
+            }
+            prune();
+        });
+    }
+
+    private void submit(Runnable job) {
+        try {
+            exec.execute(job);
+        } catch (RejectedExecutionException closing) {
+            // 已经 shutdown：剩下的交给下次启动的 sweep
+        }
+    }
+
+    /** 等待已提交的压缩/清理做完（退出时调用） */
+    public void shutdown(long timeoutMs) {
+        exec.shutdown();
+        try {
+            exec.awaitTermination(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void gzip(Path src) {
+        if (!Files.isRegularFile(src)) return;
+        Path gz  = src.resolveSibling(src.getFileName() + ".gz");
+        Path tmp = src.resolveSibling(src.getFileName() + ".gz.tmp");
+        try (InputStream in = Files.newInputStream(src);
+             OutputStream out = new GZIPOutputStream(Files.newOutputStream(tmp), 1 << 16)) {
+            byte[] buf = new byte[1 << 16];
+            int n;
+            while ((n = in.read(buf)) > 0) out.write(buf, 0, n);
+        } catch (IOException e) {
+            System.err.println("[LogJanitor] 压缩失败 " + src + ": " + e);
+            try { Files.deleteIfExists(tmp); } catch (IOException ignore) { }
+            return;
+        }
+        try {
+            Files.move(tmp, gz, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.delete(src);
+            dropIndex(src);
+        } catch (IOException e) {
+            System.err.println("[LogJanitor] 替换失败 " + src + ": " + e);
+        }
+    }
+
+    private void prune() {
+        List<Path> segs = listSegments();           // 按文件名排序 = 按时间从旧到新
+        segs.removeIf(p -> !managed(p));
+        long total = 0;
+        long[] sizes = new long[segs.size()];
+        for (int i = 0; i < segs.size(); i++) {
+            try { sizes[i] = Files.size(segs.get(i)); } catch (IOException e) { sizes[i] = 0; }
+            total += sizes[i];
+        }
+        long now = System.currentTimeMillis();
+        int remaining = segs.size();
+        for (int i = 0; i < segs.size(); i++) {
+            Path p = segs.get(i);
+            boolean tooOld;
+            try {
+                tooOld = maxAgeMs > 0 && now - Files.getLastModifiedTime(p).toMillis() > maxAgeMs;
+            } catch (IOException e) {
+                tooOld = false;
+            }
+            boolean tooMany = maxFiles > 0 && remaining > maxFiles;
+            boolean tooBig  = maxTotalBytes > 0 && total > maxTotalBytes;
+            if (!tooOld && !tooMany && !tooBig) break;
+            try {
+                Files.deleteIfExists(p);
+                dropIndex(p);
+                total -= sizes[i];
+                remaining--;
+            } catch (IOException e) {
+                System.err.println("[LogJanitor] 删除失败 " + p + ": " + e);
+            }
+        }
+    }
+
+    // PetLogQuery 在 logs/.index/ 下给每个段留的稀疏时间索引，段没了索引也跟着删
+    private void dropIndex(Path seg) {
+        try {
+            Files.deleteIfExists(dir.resolve(".index").resolve(seg.getFileName() + ".idx"));
+        } catch (IOException ignore) { }
+    }
+
+    // ===== 哪些段归清洁工管 =====
+
+    private boolean managed(Path p) {
+        if (inUse(p)) return false;
+        String n = p.getFileName().toString();
+        return n.endsWith(".gz") || adoptUntrailed || hasTrailer(p);
+    }
+
+    private static Path key(Path p) { return p.toAbsolutePath().normalize(); }
+
+    // 本进程在写，或者别的进程握着它的文件锁
+    private static boolean inUse(Path p) {
+        if (LIVE.contains(key(p))) return true;
+        if (p.getFileName().toString().endsWith(".gz")) return false;
+        try (FileChannel ch = FileChannel.open(p, StandardOpenOption.WRITE)) {
+            FileLock l = ch.tryLock();
+            if (l == null) return true;
+            l.release();
+            return false;
+        } catch (OverlappingFileLockException e) {
+            return true;
+        } catch (IOException e) {
+            return Files.exists(p);                  // 打不开就当它在用，宁可不动
+        }
+    }
+
+    /** 段是否以段尾结束（CSV 看最后一行，二进制要顺序解码到末尾） */
+    static boolean hasTrailer(Path p) {
+        String n = p.getFileName().toString();
+        try {
+            if (n.endsWith(".csv")) {
+                try (RandomAccessFile f = new RandomAccessFile(p.toFile(), "r")) {
+                    int tailLen = (int) Math.min(f.length(), 256);
+                    byte[] b = new byte[tailLen];
+                    f.seek(f.length() - tailLen);
+                    f.readFully(b);
+                    String tail = new String(b, StandardCharsets.UTF_8);
+                    int nl = tail.lastIndexOf('\n', tail.length() - 2);
+                    return tail.startsWith(PetRecorder.CSV_TRAILER_PREFIX, nl + 1);
+                }
+            }
+            if (n.endsWith(".petlog")) {
+                PetLogCodec.Tail t = new PetLogCodec.Tail();
+                try (InputStream in = Files.newInputStream(p)) {
+                    PetLogCodec.decode(in, (w, u, tk, a, s, x, y, d) -> { }, t);
+                }
+                return t.hasTrailer;
+            }
+        } catch (IOException e) {
+            // 读不了就当没有段尾
+        }
+        return false;
+    }
+
+    private List<Path> listSegments() {
+        List<Path> out = new ArrayList<>();
+        try (Stream<Path> s = Files.list(dir)) {
+            s.filter(LogJanitor::isSegment).sorted().forEach(out::add);
+        } catch (IOException e) {
+            System.err.println("[LogJanitor] 无法列出 " + dir + ": " + e);
+        }
+        return out;
+    }
+
+    static boolean isSegment(Path p) {
+        String n = p.getFileName().toString();
+        return n.startsWith("pet-") && (n.endsWith(".csv") || n.endsWith(".petlog")
+                || n.endsWith(".csv.gz") || n.endsWith(".petlog.gz"));
+    }
+}
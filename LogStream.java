@@ -0,0 +1,186 @@
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 进程内的实时日志流（Flow.Publisher）。PetRecorder 的写线程每写出一条事件就 publish 一次，
+ * 没有订阅者时什么也不做（连 Event 对象都不建）。
+ *
+ * 每个订阅者一个有界缓冲：订阅者跟不上时丢掉最老的事件（计数），不会反压到写线程，更不会拖慢 tick。
+ * 投递在守护线程池里进行，按订阅者的 request(n) 发放。
+ */
+public final class LogStream implements Flow.Publisher<LogStream.Event>, AutoCloseable {
+
+    /** 一条日志事件（不可变），列与 CSV 相同 */
+    public static final class Event {
+        private static final DateTimeFormatter ISO = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+        public final long wallMs, uptimeMs;
+        public final int tick, x, y;
+        public final String action, state, detail;
+
+        Event(long wallMs, long uptimeMs, int tick, String action, String state, int x, int y, String detail) {
+            this.wallMs = wallMs;
+            this.uptimeMs = uptimeMs;
+            this.tick = tick;
+            this.action = action;
+            this.state = state;
+            this.x = x;
+            this.y = y;
+            this.detail = detail;
+        }
+
+        /** 与日志文件同格式的一行（不含换行） */
+        public String toCsv() {
+            String time = LocalDateTime.ofInstant(Instant.ofEpochMilli(wallMs), ZoneId.systemDefault()).format(ISO);
+            return time + ',' + uptimeMs + ',' + tick + ',' + action + ',' + state + ',' + x + ',' + y + ',' + detail;
+        }
+    }
+
+    public static final int DEFAULT_BUFFER = 1024;
+
+    private final int bufferSize;
+    private final List<Sub> subs = new CopyOnWriteArrayList<>();
+    private volatile boolean closed = false;
+
+    private final ExecutorService delivery = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "LogStream");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public LogStream() { this(DEFAULT_BUFFER); }
+
+    public LogStream(int bufferSize) { this.bufferSize = Math.max(1, bufferSize); }
+
+    /** 写线程先问一下，没人听就不用构造 Event */
+    public boolean hasSubscribers() { return !subs.isEmpty(); }
+
+    public int getSubscriberCount() { return subs.size(); }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super Event> subscriber) {
+        Sub s = new Sub(subscriber);
+        subscriber.onSubscribe(s);
+        if (closed) {
+            s.complete();
+            return;
+        }
+        subs.add(s);
+        // onSubscribe 里就取消了（比如客户端发表头时已断开）：那次 remove 早于 add，这里补上
+        if (s.cancelled) subs.remove(s);
+    }
+
+    /** 写线程调用；非阻塞 */
+    void publish(Event e) {
+        for (Sub s : subs) s.offer(e);
+    }
+
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        for (Sub s : subs) s.complete();
+        subs.clear();
+        delivery.shutdown();
+    }
+
+    // 单个订阅者：有界缓冲 + 未满足的 request 数；wip 保证同一时刻只有一个投递任务在跑
+    private final class Sub implements Flow.Subscription {
+        private final Flow.Subscriber<? super Event> subscriber;
+        private final ArrayDeque<Event> buf = new ArrayDeque<>();
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private final AtomicLong dropped = new AtomicLong();
+        private volatile boolean cancelled, completed;
+
+        Sub(Flow.Subscriber<? super Event> subscriber) { this.subscriber = subscriber; }
+
+        void offer(Event e) {
+            synchronized (buf) {
+                if (buf.size() >= bufferSize) {
+                    buf.pollFirst();
+                    dropped.incrementAndGet();
+                }
+                buf.addLast(e);
+            }
+            schedule();
+        }
+
+        void complete() {
+            completed = true;
+            schedule();
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                cancel();
+                subscriber.onError(new IllegalArgumentException("request 必须为正数: " + n));
+                return;
+            }
+            demand.getAndAccumulate(n, (a, b) -> a + b < 0 ? Long.MAX_VALUE : a + b);
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            subs.remove(this);
+            synchronized (buf) { buf.clear(); }
+        }
+
+        private void schedule() {
+            if (wip.getAndIncrement() != 0) return;
+            try {
+                delivery.execute(this::drain);
+            } catch (java.util.concurrent.RejectedExecutionException ex) {
+                drain();                      // 已关闭：就在当前线程把 onComplete 发出去
+            }
+        }
+
+        private void drain() {
+            int missed = 1;
+            while (true) {
+                while (!cancelled && demand.get() > 0) {
+                    Event e;
+                    synchronized (buf) { e = buf.pollFirst(); }
+                    if (e == null) break;
+                    demand.decrementAndGet();
+                    try {
+                        subscriber.onNext(e);
+                    } catch (RuntimeException ex) {
+                        cancel();
+                        System.err.println("[LogStream] 订阅者异常，已取消: " + ex);
+                    }
+                }
+                if (completed && !cancelled) {
+                    boolean empty;
+                    synchronized (buf) { empty = buf.isEmpty(); }
+                    if (empty) {
+                        cancelled = true;
+                        subscriber.onComplete();
+                    }
+                }
+                missed = wip.addAndGet(-missed);
+                if (missed == 0) return;
+            }
+        }
+    }
+
+    /** 所有订阅者因为跟不上而被丢掉的事件总数 */
+    public long getDroppedCount() {
+        long n = 0;
+        for (Sub s : subs) n += s.dropped.get();
+        return n;
+    }
+}
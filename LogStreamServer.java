@@ -0,0 +1,156 @@
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Comparator;
+import java.util.stream.Stream;
+import java.util.concurrent.Flow;
+
+/**
+ * 把 LogStream 通过 Unix domain socket（logs/pet-<pid>.sock，见 PetRecorder）转发给本机的其它进程，
+ * 每个连接收到的是和日志文件同格式的 CSV 行（先发一行表头）。不碰磁盘上的日志文件。
+ *
+ * 每个连接就是 LogStream 的一个订阅者：写完一行才 request 下一行，
+ * 客户端读得慢时积压在 LogStream 的有界缓冲里，满了丢最老的。
+ *
+ * 几只宠物各开各的 socket 文件：启动时只清理连不上的残留文件，关闭时只删自己绑定的那个。
+ *
+ * 客户端：java -cp bin LogStreamServer [logs/pet-<pid>.sock]   （相当于 tail -f；不给就连最新的一个）
+ */
+public final class LogStreamServer implements AutoCloseable {
+
+    private final Path socketPath;
+    private final LogStream stream;
+    private final ServerSocketChannel server;
+    private final Object boundKey;              // 绑定出来的 socket 文件的 fileKey，关闭时核对
+    private final Thread acceptor;
+    private volatile boolean closed = false;
+
+    public LogStreamServer(Path socketPath, LogStream stream) throws IOException {
+        this.socketPath = socketPath;
+        this.stream = stream;
+        removeStale(socketPath);
+        server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        server.bind(UnixDomainSocketAddress.of(socketPath));
+        boundKey = fileKey(socketPath);
+        acceptor = new Thread(this::acceptLoop, "LogStreamServer");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    private void acceptLoop() {
+        while (!closed) {
+            try {
+                SocketChannel ch = server.accept();
+                stream.subscribe(new Client(ch));
+            } catch (IOException e) {
+                if (!closed) System.err.println("[LogStreamServer] accept 失败: " + e);
+                return;
+            }
+        }
+    }
+
+    public Path getSocketPath() { return socketPath; }
+
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        try { server.close(); } catch (IOException ignore) { }
+        // 只删自己绑定的那个文件（被别人替换过就不动）
+        Object key = fileKey(socketPath);
+        if (key != null && key.equals(boundKey)) {
+            try { Files.deleteIfExists(socketPath); } catch (IOException ignore) { }
+        }
+    }
+
+    // 有人在听就报错，连不上才是上次异常退出留下的，可以删
+    private static void removeStale(Path p) throws IOException {
+        if (!Files.exists(p)) return;
+        boolean live;
+        try {
+            SocketChannel probe = SocketChannel.open(UnixDomainSocketAddress.of(p));
+            live = true;
+            try { probe.close(); } catch (IOException ignore) { }
+        } catch (IOException refused) {
+            live = false;
+        }
+        if (live) throw new IOException(p + " 已被另一个进程占用");
+        Files.deleteIfExists(p);
+    }
+
+    private static Object fileKey(Path p) {
+        try {
+            return Files.readAttributes(p, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS).fileKey();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    // 一个连接 = 一个订阅者；阻塞写在 LogStream 的投递线程里进行
+    private static final class Client implements Flow.Subscriber<LogStream.Event> {
+        private final SocketChannel ch;
+        private Flow.Subscription sub;
+
+        Client(SocketChannel ch) { this.ch = ch; }
+
+        @Override
+        public void onSubscribe(Flow.Subscription s) {
+            sub = s;
+            if (send(PetLogCodec.CSV_HEADER)) s.request(1);
+        }
+
+        @Override
+        public void onNext(LogStream.Event e) {
+            if (send(e.toCsv())) sub.request(1);
+        }
+
+        @Override public void onError(Throwable t) { closeQuietly(); }
+        @Override public void onComplete() { closeQuietly(); }
+
+        private boolean send(String line) {
+            ByteBuffer b = ByteBuffer.wrap((line + "\n").getBytes(StandardCharsets.UTF_8));
+            try {
+                while (b.hasRemaining()) ch.write(b);
+                return true;
+            } catch (IOException e) {                // 客户端断开
+                sub.cancel();
+                closeQuietly();
+                return false;
+            }
+        }
+
+        private void closeQuietly() {
+            try { ch.close(); } catch (IOException ignore) { }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path p = args.length > 0 ? Paths.get(args[0]) : newestSocket(Paths.get("logs"));
+        try (SocketChannel ch = SocketChannel.open(UnixDomainSocketAddress.of(p))) {
+            ByteBuffer buf = ByteBuffer.allocate(1 << 16);
+            while (ch.read(buf) >= 0) {
+                buf.flip();
+                System.out.write(buf.array(), 0, buf.limit());
+                System.out.flush();
+                buf.clear();
+            }
+        }
+    }
+
+    private static Path newestSocket(Path dir) throws IOException {
+        try (Stream<Path> s = Files.list(dir)) {
+            return s.filter(p -> p.getFileName().toString().matches("pet-.*\\.sock"))
+                    .max(Comparator.comparingLong(p -> p.toFile().lastModified()))
+                    .orElseThrow(() -> new IOException(dir + " 下没有 pet-*.sock（宠物要加 -Dpet.log.stream=true）"));
+        }
+    }
+}
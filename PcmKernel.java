@@ -0,0 +1,86 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+
+/**
+ * 16 位小端 PCM 的一趟分析：RMS、峰值、过零率在同一个循环里算完。
+ * 标量实现通过 ShortBuffer 视图批量读样本（不再逐字节拼 short）；
+ * 向量实现 PcmKernelVector（jdk.incubator.vector）是可选的，编译和运行都要
+ * --add-modules jdk.incubator.vector，见 bench/run_bench.bat。best() 加载不到就用标量。
+ * run.bat 不编译向量版（孵化模块每个 JDK 版本都可能变），所以平常启动用的就是标量版。
+ */
+public abstract class PcmKernel {
+
+    /** 分析结果；调用方复用同一个对象，analyze 不分配 */
+    public static final class Result {
+        public double rms;      // 样本单位（0..32768）
+        public int    peak;     // 最大绝对值
+        public double zcr;      // 同一声道相邻样本符号改变的比例（0..1）
+        public int    samples;
+
+        /** 粗略归一化到 0..1（与旧 AudioProbe 的刻度相同） */
+        public double level() { return Math.min(1.0, rms / 20000.0); }
+    }
+
+    /** 分析 le16 的 [position, limit)；多声道按交错排列，过零率按声道分别比较 */
+    public abstract void analyze(ByteBuffer le16, int channels, Result out);
+
+    public abstract String name();
+
+    private static final PcmKernel SCALAR = new Scalar();
+
+    public static PcmKernel scalar() { return SCALAR; }
+
+    /** -Dpet.audio.vector=false 可以强制用标量 */
+    public static PcmKernel best() {
+        if (!"false".equalsIgnoreCase(System.getProperty("pet.audio.vector"))) {
+            try {
+                return (PcmKernel) Class.forName("PcmKernelVector").getDeclaredConstructor().newInstance();
+            } catch (Throwable notAvailable) {
+                // 没编译进来，或者运行时没加 --add-modules jdk.incubator.vector
+            }
+        }
+        return SCALAR;
+    }
+
+    // 先把样本批量拷进复用的 short[]（ShortBuffer.get(short[]) 是一次内存拷贝），再在数组上循环，
+    // 比逐个 get(i) 少了每个样本的边界检查和字节序判断
+    static final class Scalar extends PcmKernel {
+        private short[] scratch = new short[0];
+
+        @Override
+        public synchronized void analyze(ByteBuffer le16, int channels, Result out) {
+            ShortBuffer s = le16.duplicate().order(ByteOrder.LITTLE_ENDIAN).asShortBuffer();
+            int n = s.remaining();
+            if (scratch.length < n) scratch = new short[n];
+            short[] a = scratch;
+            s.get(a, 0, n);
+            long sum = 0;
+            int max = 0, min = 0, crossings = 0;
+            int head = Math.min(channels, n);
+            for (int i = 0; i < head; i++) {       // 每个声道的第一个样本没有前一个可比
+                int v = a[i];
+                sum += v * v;
+                if (v > max) max = v;
+                if (v < min) min = v;
+            }
+            for (int i = head; i < n; i++) {       // 平方和、峰值、过零数在同一个循环里累计
+                int v = a[i];
+                sum += v * v;                      // 32768² 仍在 int 范围内
+                if (v > max) max = v;
+                if (v < min) min = v;
+                crossings += (v ^ a[i - channels]) >>> 31;   // 符号不同记 1，不分支
+            }
+            fill(out, sum, max, min, crossings, n, channels);
+        }
+
+        @Override public String name() { return "scalar"; }
+    }
+
+    static void fill(Result out, long sumSq, int max, int min, int crossings, int n, int channels) {
+        out.samples = n;
+        out.rms = n == 0 ? 0.0 : Math.sqrt((double) sumSq / n);
+        out.peak = Math.max(max, -min);
+        out.zcr = n <= channels ? 0.0 : (double) crossings / (n - channels);
+    }
+}
@@ -0,0 +1,87 @@
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+
+/**
+ * 运行开销计数：tick 耗时直方图、实际帧率、重绘/移窗的发出与跳过次数。
+ * tick 侧每帧只有几次整数自增和一次 nanoTime，常开也不碍事；只在 tick 线程（EDT）上更新和读取。
+ * JVM 的 GC/堆信息由 sampleJvm() 现读 MXBean，只在面板性能页可见时调用。
+ */
+public final class PerfMonitor {
+
+    /** 直方图桶：第 i 桶 = 耗时 < 2^(i+6) 微秒 的 tick（第 0 桶 < 64µs，最后一桶兜底） */
+    public static final int BUCKETS = 12;
+
+    private final long[] hist = new long[BUCKETS];
+    private long ticks = 0;
+    private long tickNanosTotal = 0;
+    private long tickNanosMax = 0;
+    private long lastStartNanos = 0;
+    private double intervalEmaNanos = 0;
+
+    private long repaints = 0, repaintsSkipped = 0;
+    private long moves = 0, movesSkipped = 0;
+
+    // ===== tick 侧 =====
+
+    public void tickDone(long startNanos, long endNanos) {
+        long d = endNanos - startNanos;
+        int b = 63 - Long.numberOfLeadingZeros(Math.max(1, d / 1000)) - 5;   // log2(µs) - 5
+        hist[Math.max(0, Math.min(BUCKETS - 1, b))]++;
+        ticks++;
+        tickNanosTotal += d;
+        if (d > tickNanosMax) tickNanosMax = d;
+        if (lastStartNanos != 0) {
+            long iv = startNanos - lastStartNanos;
+            intervalEmaNanos = intervalEmaNanos == 0 ? iv : intervalEmaNanos + 0.05 * (iv - intervalEmaNanos);
+        }
+        lastStartNanos = startNanos;
+    }
+
+    public void repaint(boolean issued) { if (issued) repaints++; else repaintsSkipped++; }
+    public void move(boolean issued)    { if (issued) moves++; else movesSkipped++; }
+
+    // ===== 读取 =====
+
+    public long   getTicks()           { return ticks; }
+    public long[] getHistogram()       { return hist.clone(); }
+    public double getMeanTickMicros()  { return ticks == 0 ? 0 : tickNanosTotal / 1000.0 / ticks; }
+    public double getMaxTickMicros()   { return tickNanosMax / 1000.0; }
+    /** 由相邻 tick 间隔的指数平均算出（Timer 掉帧时低于名义帧率） */
+    public double getFps()             { return intervalEmaNanos <= 0 ? 0 : 1e9 / intervalEmaNanos; }
+    public long   getRepaints()        { return repaints; }
+    public long   getRepaintsSkipped() { return repaintsSkipped; }
+    public long   getMoves()           { return moves; }
+    public long   getMovesSkipped()    { return movesSkipped; }
+
+    public static String bucketLabel(int i) {
+        long hi = 1L << (i + 6);
+        if (i == BUCKETS - 1) return "≥" + fmtMicros(hi / 2);
+        return "<" + fmtMicros(hi);
+    }
+
+    private static String fmtMicros(long us) {
+        return us >= 1000 ? (us / 1000) + "ms" : us + "µs";
+    }
+
+    // ===== JVM =====
+
+    /** 堆与 GC 累计（读 MXBean，面板刷新时调用） */
+    public static final class Jvm {
+        public long heapUsed, heapCommitted, heapMax;
+        public long gcCount, gcMillis;
+    }
+
+    public static Jvm sampleJvm() {
+        Jvm j = new Jvm();
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        j.heapUsed = heap.getUsed();
+        j.heapCommitted = heap.getCommitted();
+        j.heapMax = heap.getMax();
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            j.gcCount += Math.max(0, gc.getCollectionCount());
+            j.gcMillis += Math.max(0, gc.getCollectionTime());
+        }
+        return j;
+    }
+}
@@ -11,6 +11,8 @@ public class PetControlPanel extends JFrame {
     private JCheckBox remindCb  = new JCheckBox("启用健康提醒（30分钟）", true);
     private JCheckBox fullCb    = new JCheckBox("视频检测：全屏", true);
     private JCheckBox audioCb   = new JCheckBox("视频检测：音频", true);
+    private JCheckBox waterCb   = new JCheckBox("喝水", false);
+    private JCheckBox eyeCb     = new JCheckBox("护眼 20-20-20", false);
     private JButton  resetBtn   = new JButton("重置计时");
     private JLabel   statusLbl  = new JLabel("活跃用时：0 分钟；下次提醒：起来！");
     private JLabel hmsLbl   = new JLabel("活跃用时：00:00:00");
@@ -20,7 +22,11 @@ public class PetControlPanel extends JFrame {
     private JButton startBtn = new JButton("启动宠物");
     private JButton stopBtn  = new JButton("停止宠物");
     private JButton reloadBtn = new JButton("刷新素材");
+    private JButton statsBtn = new JButton("会话统计");
+    private JButton activityBtn = new JButton("活跃统计");
     private JCheckBox recCb  = new JCheckBox("记录动作日志", true);
+    private JCheckBox controlCb = new JCheckBox("本机控制接口", false);
+    private JLabel controlLbl = new JLabel("");
     private JSlider speedSlider = new JSlider(1, 10, 3);
     private JButton idleBtn = new JButton("Idle");
     private JButton walkBtn = new JButton("Walk");
@@ -32,10 +38,25 @@ public class PetControlPanel extends JFrame {
     private JButton ceilRBtn  = new JButton("到顶向右");
     private JRadioButton roamRb   = new JRadioButton("闲逛模式", true);
     private JRadioButton manualRb = new JRadioButton("手动模式", false);
+    private JTextField sayField = new JTextField(24);
+    private JButton sayBtn = new JButton("说");
+    // —— 日志过滤 —— //
+    private JComboBox<PetEvent.Level> minLevelBox = new JComboBox<>(PetEvent.Level.values());
+    private JComboBox<PetEvent> filterEventBox = new JComboBox<>(PetEvent.values());
+    private JComboBox<PetEvent.Level> eventLevelBox = new JComboBox<>(PetEvent.Level.values());
+    private JSpinner sampleSpin = new JSpinner(new SpinnerNumberModel(1, 1, 1000, 1));
+    private JSpinner rateSpin   = new JSpinner(new SpinnerNumberModel(0.0, 0.0, 1000.0, 0.5));
+    private JButton filterApplyBtn = new JButton("应用");
+    private JLabel filteredLbl = new JLabel("已过滤 0 条");
 
     public PetControlPanel() {
         super("桌宠控制面板");
         setDefaultCloseOperation(WindowConstants.EXIT_ON_CLOSE);
+        addWindowListener(new WindowAdapter() {
+            @Override public void windowClosing(WindowEvent e) {
+                if (pet != null) pet.dispose();   // 退出前让宠物写完日志段尾
+            }
+        });
         setMinimumSize(new Dimension(900, 520));
         setLocationByPlatform(true);
 
@@ -55,8 +76,12 @@ public class PetControlPanel extends JFrame {
         row1.add(startBtn);
         row1.add(stopBtn);
         row1.add(reloadBtn);
+        row1.add(statsBtn);
+        row1.add(activityBtn);
         row1.add(Box.createHorizontalStrut(10));
         row1.add(recCb);
+        row1.add(controlCb);
+        row1.add(controlLbl);
         controlsPanel.add(row1);
 
         // 行2：模式切换
@@ -93,10 +118,42 @@ public class PetControlPanel extends JFrame {
         row5.add(speedSlider);
         controlsPanel.add(row5);
 
-        // 加入滚动面板
+        // 行6：文字气泡
+        JPanel row6 = row();
+        row6.add(new JLabel("说话："));
+        row6.add(sayField);
+        row6.add(sayBtn);
+        controlsPanel.add(row6);
+
+        // 行7：日志过滤（全局最低级别 + 单个事件的级别/采样/限速）
+        JPanel row7 = row();
+        row7.add(new JLabel("日志级别≥"));
+        row7.add(minLevelBox);
+        row7.add(Box.createHorizontalStrut(10));
+        row7.add(filterEventBox);
+        row7.add(eventLevelBox);
+        row7.add(new JLabel("采样 1/"));
+        row7.add(sampleSpin);
+        row7.add(new JLabel("限速（条/秒，0=不限）"));
+        row7.add(rateSpin);
+        row7.add(filterApplyBtn);
+        row7.add(Box.createHorizontalStrut(10));
+        row7.add(filteredLbl);
+        controlsPanel.add(row7);
+
+        // 加入滚动面板；和性能页放在两个标签页里
         JScrollPane sp = new JScrollPane(controlsPanel);
         sp.setBorder(null);
-        getContentPane().add(sp, BorderLayout.CENTER);
+        perfArea.setEditable(false);
+        perfArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        tabs.addTab("控制", sp);
+        tabs.addTab("性能", new JScrollPane(perfArea));
+        getContentPane().add(tabs, BorderLayout.CENTER);
+
+        // 性能页：只在可见时每秒读一次计数和 MXBean
+        new javax.swing.Timer(1000, e -> {
+            if (pet != null && tabs.getSelectedIndex() == 1 && isShowing()) perfArea.setText(formatPerf());
+        }).start();
 
         // ===== 底部健康提醒条（两行）=====
         JPanel healthPanel = new JPanel(new GridLayout(2, 1));
@@ -106,6 +163,8 @@ public class PetControlPanel extends JFrame {
         hmsLbl.setFont(hmsLbl.getFont().deriveFont(Font.BOLD, 14f));
 
         rowA.add(remindCb);
+        rowA.add(waterCb);
+        rowA.add(eyeCb);
         rowA.add(Box.createHorizontalStrut(12));
         rowA.add(fullCb);
         rowA.add(Box.createHorizontalStrut(12));
@@ -124,33 +183,20 @@ public class PetControlPanel extends JFrame {
         healthPanel.add(rowB);
         getContentPane().add(healthPanel, BorderLayout.SOUTH);
 
-        // —— 每秒刷新显示 —— //
-        new javax.swing.Timer(1000, e -> {
-            if (pet != null) {
-                statusLbl.setText(pet.getNextRemindLabel());          // 站起来 / 坐下
-                hmsLbl.setText("活跃用时：" + pet.getElapsedActiveHMS()); // 00:00:00
-
-                String details = String.format(
-                    "最近输入: %ds | 全屏: %s | 音频: %s%s | 判定活跃: %s | 进度: %d%%",
-                    pet.getIdleGapSeconds(),
-                    pet.isFullscreenActive() ? "✓" : "✗",
-                    pet.isAudioProbeAvailable() ? (pet.isAudioBusy() ? "✓" : "✗") : "—",
-                    pet.isAudioProbeAvailable() ? String.format(" (rms=%.2f)", pet.getAudioLevelRms()) : "",
-                    pet.isUserActive() ? "✓" : "✗",
-                    pet.getProgressPercent()
-                );
-                detailLbl.setText(details);
-            }
-        }).start();
-
-
-
         // ===== 事件绑定 =====
         startBtn.addActionListener(e -> onStart());
         stopBtn.addActionListener(e -> { if (pet != null) pet.stopRunning(); });
         reloadBtn.addActionListener(e -> { if (ensurePet()) pet.reloadSprites(); });
+        statsBtn.addActionListener(e -> { if (ensurePet()) showSessionStats(); });
+        activityBtn.addActionListener(e -> { if (ensurePet()) showActivityStats(); });
 
         recCb.addActionListener(e -> { if (ensurePet()) pet.setRecordingEnabled(recCb.isSelected()); });
+        controlCb.addActionListener(e -> {
+            if (!ensurePet()) return;
+            if (controlCb.isSelected()) pet.startControlServer(Integer.getInteger("pet.control.port", 0));
+            else pet.stopControlServer();
+            loadControlRow();
+        });
 
         roamRb.addActionListener(e -> { if (ensurePet()) pet.setModeRoam(); });
         manualRb.addActionListener(e -> { if (ensurePet()) pet.setModeManual(); });
@@ -165,6 +211,27 @@ public class PetControlPanel extends JFrame {
         ceilLBtn.addActionListener(e -> { if (ensurePet()) pet.startCeiling(false); });
         ceilRBtn.addActionListener(e -> { if (ensurePet()) pet.startCeiling(true); });
 
+        sayBtn.addActionListener(e -> { if (ensurePet()) pet.say(sayField.getText()); });
+        sayField.addActionListener(e -> { if (ensurePet()) pet.say(sayField.getText()); });
+
+        minLevelBox.addActionListener(e -> {
+            if (ensurePet()) {
+                pet.getEventFilter().setMinLevel((PetEvent.Level) minLevelBox.getSelectedItem());
+                loadFilterRow();
+            }
+        });
+        filterEventBox.addActionListener(e -> { if (pet != null) loadFilterRow(); });
+        filterApplyBtn.addActionListener(e -> {
+            if (!ensurePet()) return;
+            EventFilter f = pet.getEventFilter();
+            PetEvent ev = (PetEvent) filterEventBox.getSelectedItem();
+            double rate = ((Number) rateSpin.getValue()).doubleValue();
+            f.setLevel(ev, (PetEvent.Level) eventLevelBox.getSelectedItem());
+            f.setSampling(ev, ((Number) sampleSpin.getValue()).intValue());
+            f.setRateLimit(ev, rate, Math.max(f.getBurst(ev), rate * 4));
+            loadFilterRow();
+        });
+
         speedSlider.addChangeListener(e -> {
             if (ensurePet() && !speedSlider.getValueIsAdjusting()) {
                 pet.setSpeed(speedSlider.getValue());
@@ -174,33 +241,186 @@ public class PetControlPanel extends JFrame {
         remindCb.addActionListener(e -> { if (ensurePet()) pet.setReminderEnabled(remindCb.isSelected()); });
         fullCb.addActionListener(e -> { if (ensurePet()) pet.setDetectFullscreen(fullCb.isSelected()); });
         audioCb.addActionListener(e -> { if (ensurePet()) pet.setDetectAudio(audioCb.isSelected()); });
+        waterCb.addActionListener(e -> { if (ensurePet()) pet.setReminderTypeEnabled(ReminderScheduler.WATER, waterCb.isSelected()); });
+        eyeCb.addActionListener(e -> { if (ensurePet()) pet.setReminderTypeEnabled(ReminderScheduler.EYE, eyeCb.isSelected()); });
         resetBtn.addActionListener(e -> { if (ensurePet()) pet.resetReminder(); });
 
-        // 每秒刷新健康提醒状态文字
-        new javax.swing.Timer(1000, e -> {
-            if (pet != null) {
-                // 行A：下次提醒
-                statusLbl.setText(pet.getNextRemindLabel());
-
-                // 行B：时分秒
-                hmsLbl.setText("活跃用时：" + pet.getElapsedActiveHMS());
-
-                // 行B：详情
-                String details = String.format(
-                    "最近输入: %ds | 全屏: %s | 音频: %s%s | 判定活跃: %s | 进度: %d%%",
-                    pet.getIdleGapSeconds(),
-                    pet.isFullscreenActive() ? "✓" : "✗",
-                    pet.isAudioProbeAvailable() ? (pet.isAudioBusy() ? "✓" : "✗") : "—",
-                    pet.isAudioProbeAvailable() ? String.format(" (rms=%.2f)", pet.getAudioLevelRms()) : "",
-                    pet.isUserActive() ? "✓" : "✗",
-                    pet.getProgressPercent()
-                );
-                detailLbl.setText(details);
-            }
-        }).start();
+        pack();
+    }
 
+    // —— 性能页 —— //
+    private final JTabbedPane tabs = new JTabbedPane();
+    private final JTextArea perfArea = new JTextArea(24, 80);
+    private long perfLastWallNanos = 0, perfLastAudioCpu = 0, perfLastTicks = 0;
+    private long perfLastRepaints = 0, perfLastMoves = 0;
+
+    private String formatPerf() {
+        PerfMonitor pm = pet.getPerf();
+        PetRecorder rec = pet.getRecorder();
+        PerfMonitor.Jvm jvm = PerfMonitor.sampleJvm();
+        long now = System.nanoTime();
+        double dt = perfLastWallNanos == 0 ? 0 : (now - perfLastWallNanos) / 1e9;
+        long audioCpu = pet.getAudioDetector().getCpuNanos();
+        StringBuilder sb = new StringBuilder();
+
+        sb.append(String.format("== Tick ==%n"));
+        sb.append(String.format("实际帧率 %.1f FPS   本秒 tick %d   平均 %.0fµs   最长 %.0fµs%n",
+                pm.getFps(), dt > 0 ? pm.getTicks() - perfLastTicks : 0,
+                pm.getMeanTickMicros(), pm.getMaxTickMicros()));
+        long[] h = pm.getHistogram();
+        long max = 1;
+        for (long c : h) max = Math.max(max, c);
+        for (int i = 0; i < h.length; i++) {
+            if (h[i] == 0 && i > 4) continue;
+            int bar = (int) Math.round(h[i] * 40.0 / max);
+            sb.append(String.format("  %-8s %10d %s%n", PerfMonitor.bucketLabel(i), h[i], repeat('#', bar)));
+        }
 
-        pack();
+        sb.append(String.format("%n== 窗口 ==%n"));
+        sb.append(String.format("重绘 发出 %d / 跳过 %d（本秒 %d）%n",
+                pm.getRepaints(), pm.getRepaintsSkipped(), dt > 0 ? pm.getRepaints() - perfLastRepaints : 0));
+        sb.append(String.format("移窗 发出 %d / 跳过 %d（本秒 %d）%n",
+                pm.getMoves(), pm.getMovesSkipped(), dt > 0 ? pm.getMoves() - perfLastMoves : 0));
+        sb.append(String.format("精灵图 %s%n", mb(pet.getSpriteHeapBytes())));
+
+        sb.append(String.format("%n== 日志 ==%n"));
+        sb.append(String.format("队列深度 %d   已写 %d   丢弃 %d   fsync %d%n",
+                rec.getQueueDepth(), rec.getWrittenCount(), rec.getDroppedCount(), rec.getSyncCount()));
+
+        sb.append(String.format("%n== 音频探测 ==%n"));
+        sb.append(String.format("线程 CPU 累计 %.1fms   最近 %.2f%%%n", audioCpu / 1e6,
+                dt > 0 ? (audioCpu - perfLastAudioCpu) / 1e7 / dt : 0.0));
+
+        sb.append(String.format("%n== JVM ==%n"));
+        sb.append(String.format("堆 已用 %s / 已提交 %s / 上限 %s%n",
+                mb(jvm.heapUsed), mb(jvm.heapCommitted), jvm.heapMax < 0 ? "—" : mb(jvm.heapMax)));
+        sb.append(String.format("GC %d 次，共 %dms%n", jvm.gcCount, jvm.gcMillis));
+
+        perfLastWallNanos = now;
+        perfLastAudioCpu = audioCpu;
+        perfLastTicks = pm.getTicks();
+        perfLastRepaints = pm.getRepaints();
+        perfLastMoves = pm.getMoves();
+        return sb.toString();
+    }
+
+    private static String mb(long bytes) { return String.format("%.1fMB", bytes / 1048576.0); }
+
+    private static String repeat(char c, int n) {
+        char[] a = new char[n];
+        java.util.Arrays.fill(a, c);
+        return new String(a);
+    }
+
+    private void loadControlRow() {
+        int port = pet.getControlPort();
+        controlCb.setSelected(port > 0);
+        controlLbl.setText(port > 0 ? "127.0.0.1:" + port : "");
+    }
+
+    private void renderStatus(PetStatus st) {
+        statusLbl.setText(st.nextRemindLabel);                       // 站起来 / 坐下
+        hmsLbl.setText("活跃用时：" + st.elapsedActiveHMS());         // 00:00:00
+        detailLbl.setText(st.detailLine());
+    }
+
+    // 会话统计窗口：各状态停留、常见转移、事件计数；可见时每秒刷新
+    private JDialog statsDlg;
+    private void showSessionStats() {
+        if (statsDlg == null) {
+            statsDlg = new JDialog(this, "会话统计", false);
+            JTextArea area = new JTextArea(32, 60);
+            area.setEditable(false);
+            area.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+            statsDlg.add(new JScrollPane(area));
+            statsDlg.pack();
+            statsDlg.setLocationRelativeTo(this);
+            javax.swing.Timer t = new javax.swing.Timer(1000, e -> {
+                if (statsDlg.isVisible() && pet != null) area.setText(formatSessionStats(pet.getSessionStats()));
+            });
+            t.start();
+            area.setText(formatSessionStats(pet.getSessionStats()));
+        }
+        statsDlg.setVisible(true);
+    }
+
+    // 把选中事件当前的过滤配置填回控件
+    private void loadFilterRow() {
+        EventFilter f = pet.getEventFilter();
+        PetEvent ev = (PetEvent) filterEventBox.getSelectedItem();
+        eventLevelBox.setSelectedItem(f.getLevel(ev));
+        sampleSpin.setValue(Math.max(1, f.getSampling(ev)));
+        rateSpin.setValue(f.getRatePerSec(ev));
+        filteredLbl.setText("已过滤 " + f.getFilteredCount(ev) + " 条（共 " + f.getFilteredTotal() + "）");
+    }
+
+    private JDialog activityDlg;
+    private final ActivityChart activityChart = new ActivityChart();
+    private final JComboBox<Integer> activityDaysBox = new JComboBox<>(new Integer[] { 7, 28, 91, 365 });
+
+    // 图表只读小时/天汇总（每次打开或切换天数时读一次文件尾部）
+    private void showActivityStats() {
+        if (activityDlg == null) {
+            activityDlg = new JDialog(this, "活跃统计", false);
+            JPanel top = new JPanel(new FlowLayout(FlowLayout.LEFT));
+            top.add(new JLabel("天数："));
+            activityDaysBox.setSelectedItem(28);
+            top.add(activityDaysBox);
+            JButton refresh = new JButton("刷新");
+            top.add(refresh);
+            activityDaysBox.addActionListener(e -> loadActivityChart());
+            refresh.addActionListener(e -> loadActivityChart());
+            activityDlg.add(top, BorderLayout.NORTH);
+            activityDlg.add(activityChart, BorderLayout.CENTER);
+            activityDlg.pack();
+            activityDlg.setLocationRelativeTo(this);
+        }
+        loadActivityChart();
+        activityDlg.setVisible(true);
+    }
+
+    private void loadActivityChart() {
+        if (pet == null) return;
+        ActivityStats st = pet.getActivityStats();
+        activityChart.setData(st.loadDays((Integer) activityDaysBox.getSelectedItem()), st.loadHourGrid(7));
+    }
+
+    private static String formatSessionStats(SessionStats st) {
+        long now = System.nanoTime();
+        long total = Math.max(1, st.sessionMillis(now));
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("会话时长 %s%n%n== 各状态停留 ==%n", hms(total)));
+        int n = st.stateCount();
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) order[i] = i;
+        java.util.Arrays.sort(order, (a, b) -> Long.compare(st.dwellMillis(b, now), st.dwellMillis(a, now)));
+        for (int i : order) {
+            long ms = st.dwellMillis(i, now);
+            if (ms > 0) sb.append(String.format("%-24s %10s %6.1f%%%n", st.stateName(i), hms(ms), ms * 100.0 / total));
+        }
+
+        sb.append(String.format("%n== 状态转移（前 15）==%n"));
+        java.util.List<long[]> pairs = new java.util.ArrayList<>();
+        for (int f = 0; f < n; f++)
+            for (int t = 0; t < n; t++)
+                if (st.transitions(f, t) > 0) pairs.add(new long[]{st.transitions(f, t), f, t});
+        pairs.sort((a, b) -> Long.compare(b[0], a[0]));
+        for (int i = 0; i < Math.min(15, pairs.size()); i++) {
+            long[] p = pairs.get(i);
+            sb.append(String.format("%-48s %6d%n", st.stateName((int) p[1]) + "->" + st.stateName((int) p[2]), p[0]));
+        }
+
+        sb.append(String.format("%n== 事件计数 ==%n"));
+        for (PetEvent ev : PetEvent.values()) {
+            long c = st.eventCount(ev);
+            if (c > 0) sb.append(String.format("%-32s %6d%n", ev.name(), c));
+        }
+        return sb.toString();
+    }
+
+    private static String hms(long ms) {
+        long s = ms / 1000;
+        return String.format("%02d:%02d:%02d", s / 3600, (s % 3600) / 60, s % 60);
     }
 
     private JPanel row() {
@@ -216,10 +436,20 @@ public class PetControlPanel extends JFrame {
             pet.startRunning();
             // 把面板上的初始状态同步到宠物
             pet.setRecordingEnabled(recCb.isSelected());
-            pet.setReminderEnabled(remindCb.isSelected());
+            loadControlRow();
             pet.setDetectFullscreen(fullCb.isSelected());
             pet.setDetectAudio(audioCb.isSelected());
+            // 提醒开关以宠物这边（上次保存的进度）为准
+            remindCb.setSelected(pet.isReminderEnabled());
+            waterCb.setSelected(pet.isReminderTypeEnabled(ReminderScheduler.WATER));
+            eyeCb.setSelected(pet.isReminderTypeEnabled(ReminderScheduler.EYE));
             pet.setSpeed(speedSlider.getValue());
+            // 过滤配置以宠物这边（系统属性）为准，反过来填到面板上
+            minLevelBox.setSelectedItem(pet.getEventFilter().getMinLevel());
+            loadFilterRow();
+            // 健康提醒条由宠物推送的状态驱动（只在变化时回调）
+            pet.addStatusListener(this::renderStatus);
+            renderStatus(pet.getStatus());
         }
         return true;
         }
@@ -0,0 +1,251 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import javax.swing.SwingUtilities;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * 本机控制接口（JDK HttpServer，只绑 127.0.0.1）。每只宠物一个端口，脚本可以不经过面板驱动多只宠物：
+ *   POST /cmd      请求体每行一条命令，整批校验通过才进宠物的命令队列，在同一 tick 里按顺序执行
+ *   GET  /status   当前状态（JSON）
+ *   GET  /stream   状态变化流：每次变化一行 JSON（NDJSON），15 秒无变化发一个空行保活
+ *   GET  /         命令列表
+ * 请求在虚拟线程上处理（运行在 JDK 21+ 时；更早的 JDK 退回普通守护线程池）。
+ * 只接本机脚本：带 Origin 头（浏览器里的网页）或 Host 不是回环地址（DNS 重绑定）的请求一律 403；
+ * /cmd 请求体最多 64KB、一批最多 MAX_BATCH 条。
+ *
+ *   curl -d $'speed 8\nwalk\nsay 你好' http://127.0.0.1:PORT/cmd
+ */
+public final class PetControlServer implements AutoCloseable {
+
+    private static final String HELP = String.join("\n",
+            "idle | walk | face left|right | climb left|right | ceiling left|right",
+            "speed 1..10 | roam | manual | say <文字> | start | stop | reload",
+            "remind on|off | remind reset", "");
+    private static final int STREAM_BUFFER = 64;
+    private static final long KEEPALIVE_MS = 15_000;
+    private static final int MAX_BODY = 64 * 1024;
+    static final int MAX_BATCH = 64;
+
+    private final DesktopPet pet;
+    private final HttpServer http;
+    private final ExecutorService exec;
+    private final List<Consumer<PetStatus>> streams = new java.util.concurrent.CopyOnWriteArrayList<>();
+
+    public PetControlServer(DesktopPet pet, int port) throws IOException {
+        this.pet = pet;
+        this.exec = newExecutor();
+        http = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 16);
+        http.setExecutor(exec);
+        http.createContext("/cmd", guarded(this::handleCommands));
+        http.createContext("/status", guarded(this::handleStatus));
+        http.createContext("/stream", guarded(this::handleStream));
+        http.createContext("/", guarded(ex -> reply(ex, 200, "text/plain", HELP)));
+        http.start();
+    }
+
+    public int getPort() { return http.getAddress().getPort(); }
+
+    @Override
+    public void close() {
+        for (Consumer<PetStatus> l : streams) pet.removeStatusListener(l);
+        http.stop(0);
+        exec.shutdownNow();
+    }
+
+    // 有虚拟线程就用（JDK 21+），反射调用以便仍按 JDK 17 编译
+    private static ExecutorService newExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException noVirtualThreads) {
+            AtomicInteger n = new AtomicInteger();
+            return Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(r, "PetControl-" + n.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    // ===== 来源检查 =====
+
+    private static HttpHandler guarded(HttpHandler h) {
+        return ex -> {
+            String why = reject(ex);
+            if (why != null) { reply(ex, 403, "text/plain", why + "\n"); return; }
+            h.handle(ex);
+        };
+    }
+
+    // 浏览器跨站请求一定带 Origin；DNS 重绑定时 Host 是攻击者的域名
+    private static String reject(HttpExchange ex) {
+        if (ex.getRequestHeaders().containsKey("Origin")) return "browser requests not allowed";
+        String host = ex.getRequestHeaders().getFirst("Host");
+        if (host == null) return "missing Host";
+        int colon = host.lastIndexOf(':');
+        if (colon > host.lastIndexOf(']')) host = host.substring(0, colon);
+        switch (host.toLowerCase()) {
+            case "127.0.0.1": case "localhost": case "[::1]": return null;
+            default: return "bad Host";
+        }
+    }
+
+    // ===== /cmd =====
+
+    private void handleCommands(HttpExchange ex) throws IOException {
+        if (!"POST".equals(ex.getRequestMethod())) { reply(ex, 405, "text/plain", "POST only\n"); return; }
+        byte[] raw = ex.getRequestBody().readNBytes(MAX_BODY + 1);
+        if (raw.length > MAX_BODY) { reply(ex, 413, "text/plain", "body over " + MAX_BODY + " bytes\n"); return; }
+        String body = new String(raw, StandardCharsets.UTF_8);
+        List<Runnable> batch = new ArrayList<>();
+        StringBuilder errors = new StringBuilder();
+        String[] lines = body.split("\r?\n");
+        for (int i = 0; i < lines.length; i++) {
+            String line = lines[i].trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            try {
+                batch.add(parse(line));
+            } catch (IllegalArgumentException e) {
+                errors.append("line ").append(i + 1).append(": ").append(e.getMessage()).append('\n');
+            }
+        }
+        if (batch.size() > MAX_BATCH) { reply(ex, 413, "text/plain", "over " + MAX_BATCH + " commands\n"); return; }
+        if (errors.length() > 0) { reply(ex, 400, "text/plain", errors.toString()); return; }
+        pet.submitBatch(batch);                     // 下一 tick 开头整批执行
+        reply(ex, 200, "text/plain", "ok " + batch.size() + "\n");
+    }
+
+    private Runnable parse(String line) {
+        int sp = line.indexOf(' ');
+        String cmd = (sp < 0 ? line : line.substring(0, sp)).toLowerCase();
+        String arg = sp < 0 ? "" : line.substring(sp + 1).trim();
+        switch (cmd) {
+            case "idle":    return pet::setIdle;
+            case "walk":    return pet::setWalk;
+            case "roam":    return pet::setModeRoam;
+            case "manual":  return pet::setModeManual;
+            case "start":   return pet::startRunning;
+            case "stop":    return pet::stopRunning;
+            case "reload":  return pet::reloadSprites;
+            case "face":    { boolean right = side(arg); return () -> pet.setFacingRight(right); }
+            case "climb":   return side(arg) ? pet::startClimbRight : pet::startClimbLeft;
+            case "ceiling": { boolean right = side(arg); return () -> pet.startCeiling(right); }
+            case "say":
+                if (arg.isEmpty()) throw new IllegalArgumentException("say 需要文字");
+                return () -> pet.say(arg);
+            case "speed":
+                try {
+                    int s = Integer.parseInt(arg);
+                    if (s < 1 || s > 10) throw new IllegalArgumentException("speed 范围 1..10");
+                    return () -> pet.setSpeed(s);
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("speed 需要整数");
+                }
+            case "remind":
+                switch (arg) {
+                    case "on":    return () -> pet.setReminderEnabled(true);
+                    case "off":   return () -> pet.setReminderEnabled(false);
+                    case "reset": return pet::resetReminder;
+                    default: throw new IllegalArgumentException("remind on|off|reset");
+                }
+            default:
+                throw new IllegalArgumentException("未知命令 " + cmd);
+        }
+    }
+
+    private static boolean side(String arg) {
+        if ("left".equalsIgnoreCase(arg)) return false;
+        if ("right".equalsIgnoreCase(arg)) return true;
+        throw new IllegalArgumentException("需要 left 或 right");
+    }
+
+    // ===== /status, /stream =====
+
+    private void handleStatus(HttpExchange ex) throws IOException {
+        String[] json = new String[1];
+        try {
+            SwingUtilities.invokeAndWait(() -> json[0] = toJson(pet.getStatus()));   // 宠物状态只在 EDT 上读
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            reply(ex, 503, "text/plain", "interrupted\n");
+            return;
+        } catch (InvocationTargetException e) {
+            reply(ex, 500, "text/plain", e.getCause() + "\n");
+            return;
+        }
+        reply(ex, 200, "application/json", json[0] + "\n");
+    }
+
+    // EDT 上的回调只往有界队列里塞（满了丢最老的），写 socket 在处理这个请求的线程里做
+    private void handleStream(HttpExchange ex) throws IOException {
+        BlockingQueue<String> q = new ArrayBlockingQueue<>(STREAM_BUFFER);
+        Consumer<PetStatus> l = st -> {
+            String line = toJson(st);
+            while (!q.offer(line)) q.poll();
+        };
+        ex.getResponseHeaders().set("Content-Type", "application/x-ndjson; charset=utf-8");
+        ex.sendResponseHeaders(200, 0);
+        streams.add(l);
+        SwingUtilities.invokeLater(() -> { l.accept(pet.getStatus()); pet.addStatusListener(l); });
+        try (OutputStream out = ex.getResponseBody()) {
+            while (true) {
+                String line = q.poll(KEEPALIVE_MS, TimeUnit.MILLISECONDS);
+                out.write(((line == null ? "" : line) + "\n").getBytes(StandardCharsets.UTF_8));
+                out.flush();
+            }
+        } catch (IOException | InterruptedException clientGoneOrClosed) {
+            // 客户端断开或服务器关闭
+        } finally {
+            SwingUtilities.invokeLater(() -> pet.removeStatusListener(l));   // 排在上面的 add 之后
+            streams.remove(l);
+            ex.close();
+        }
+    }
+
+    // 在 EDT 上调用（读宠物当前状态名）
+    private String toJson(PetStatus s) {
+        return "{\"state\":\"" + pet.getPetState() + "\""
+                + ",\"nextRemind\":\"" + esc(s.nextRemindLabel) + "\""
+                + ",\"elapsedActiveSec\":" + s.elapsedActiveSec
+                + ",\"progressPercent\":" + s.progressPercent
+                + ",\"queuedReminders\":" + s.queuedReminders
+                + ",\"idleGapSec\":" + s.idleGapSec
+                + ",\"fullscreen\":" + s.fullscreen
+                + ",\"audioAvailable\":" + s.audioAvailable
+                + ",\"audioActive\":" + s.audioActive
+                + ",\"audioLevel\":" + s.audioLevelCenti / 100.0
+                + ",\"userActive\":" + s.userActive + "}";
+    }
+
+    private static String esc(String s) {
+        StringBuilder sb = new StringBuilder(s.length() + 8);
+        for (char c : s.toCharArray()) {
+            if (c == '"' || c == '\\') sb.append('\\').append(c);
+            else if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+            else sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    private static void reply(HttpExchange ex, int code, String type, String body) throws IOException {
+        byte[] b = body.getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().set("Content-Type", type + "; charset=utf-8");
+        ex.sendResponseHeaders(code, b.length);
+        try (OutputStream out = ex.getResponseBody()) { out.write(b); }
+    }
+}
@@ -0,0 +1,124 @@
+/**
+ * 日志事件码。调用点只传枚举 + 几个原始类型参数，detail 文本推迟到 PetRecorder 写线程里才拼，
+ * tick 里记日志不分配任何对象；CSV 里的 action/detail 列与以前逐字相同。
+ * 每个事件带一个默认级别：刷屏的状态切换/AI 决策是 DEBUG，其余（拖拽、命令、罕见分支）是 INFO。
+ */
+public enum PetEvent {
+    INIT("INIT", "spawn"),
+    REC_ON("REC_ON"),
+    REC_OFF("REC_OFF"),
+    RELOAD_SPRITES("RELOAD_SPRITES"),
+    SAY("SAY", Kind.TEXT),
+
+    // —— 鼠标 —— //
+    SLEEP_PRESS("SLEEP_PRESS"),
+    DRAG_START("DRAG_START"),
+    DRAG_WAKE_START("DRAG_WAKE_START"),
+    DRAG_SHORT_LIFT_SOFTDROP("DRAG_SHORT_LIFT_SOFTDROP"),
+    WAKE_BY_CLICK("WAKE_BY_CLICK"),
+    FALL_WAKE_START("FALL_WAKE_START"),
+    LAND_WAKE_DIRECT("LAND_WAKE_DIRECT"),
+    DRAG_RELEASE_BACK_TO_CEILING("DRAG_RELEASE_BACK_TO_CEILING"),
+    DRAG_SHORT_LIFT("DRAG_SHORT_LIFT"),
+    DRAG_END("DRAG_END"),
+
+    // —— 状态机 —— //
+    ENTER_STATE("ENTER_STATE", Kind.TRANSITION, Level.DEBUG), // detail = "FROM->TO"
+    ENTER_STATE_SET_IDLE("ENTER_STATE", "setIdle"),
+    ENTER_STATE_SET_WALK("ENTER_STATE", "setWalk"),
+    ENTER_SLEEP_TELEPORT("ENTER_SLEEP_TELEPORT", "gap=", ""),
+    WALK_EDGE_GRAB_LEFT("WALK_EDGE_GRAB", "LEFT"),
+    WALK_EDGE_GRAB_RIGHT("WALK_EDGE_GRAB", "RIGHT"),
+    CEILING_EDGE_SWING_LEFT("CEILING_EDGE_SWING", "LEFT"),
+    CEILING_EDGE_SWING_RIGHT("CEILING_EDGE_SWING", "RIGHT"),
+    AFTER_LAND_SLEEP_WALK_TO_CORNER("AFTER_LAND", "SLEEP_WALK_TO_CORNER"),
+    AFTER_LAND_WALK_TO_LEFT_CLIMB("AFTER_LAND", "WALK_TO_LEFT_CLIMB"),
+    AFTER_LAND_WALK_TO_RIGHT_CLIMB("AFTER_LAND", "WALK_TO_RIGHT_CLIMB"),
+    IDLE_SLEEP_PLAN_FALL_LEFT("IDLE_SLEEP_PLAN", "FALL then walkToCorner LEFT"),
+    IDLE_SLEEP_PLAN_FALL_RIGHT("IDLE_SLEEP_PLAN", "FALL then walkToCorner RIGHT"),
+    IDLE_SLEEP_PLAN_WALK_LEFT("IDLE_SLEEP_PLAN", "walkToCorner LEFT"),
+    IDLE_SLEEP_PLAN_WALK_RIGHT("IDLE_SLEEP_PLAN", "walkToCorner RIGHT"),
+
+    // —— 闲逛 AI —— //
+    AI_DECISION_WALK_LEFT("AI_DECISION", "WALK dir=L", Level.DEBUG),
+    AI_DECISION_WALK_RIGHT("AI_DECISION", "WALK dir=R", Level.DEBUG),
+    AI_DECISION_IDLE("AI_DECISION", "IDLE", Level.DEBUG),
+    AI_DECISION_CLIMB_LEFT("AI_DECISION", "CLIMB_LEFT", Level.DEBUG),
+    AI_DECISION_CLIMB_RIGHT("AI_DECISION", "CLIMB_RIGHT", Level.DEBUG),
+    AI_DECISION_WALK_TO_IDLE("AI_DECISION", "WALK->IDLE", Level.DEBUG),
+    AI_WALL_PAUSE("AI_WALL", Kind.NUMBER, "PAUSE ", " ticks", Level.DEBUG),
+    AI_WALL_FLIP_UP("AI_WALL", "FLIP_DIR UP", Level.DEBUG),
+    AI_WALL_FLIP_DOWN("AI_WALL", "FLIP_DIR DOWN", Level.DEBUG),
+    AI_TOP_PAUSE("AI_TOP", Kind.NUMBER, "PAUSE ", " ticks", Level.DEBUG),
+    AI_TOP_FLIP_LEFT("AI_TOP", "FLIP_DIR L", Level.DEBUG),
+    AI_TOP_FLIP_RIGHT("AI_TOP", "FLIP_DIR R", Level.DEBUG),
+    HANG_DROP_WALL("HANG_DROP", "WALL"),
+    HANG_DROP_CEILING("HANG_DROP", "CEILING"),
+
+    // —— 面板命令 —— //
+    FACE_LEFT("FACE", "LEFT"),
+    FACE_RIGHT("FACE", "RIGHT"),
+    SPEED("SPEED", "", ""),
+    MODE_ROAM("MODE", "ROAM"),
+    MODE_MANUAL("MODE", "MANUAL"),
+    CMD_START_CLIMB_LEFT("CMD", "startClimbLeft"),
+    CMD_START_CLIMB_RIGHT("CMD", "startClimbRight"),
+    CMD_START_CEILING_LEFT("CMD", "startCeiling LEFT"),
+    CMD_START_CEILING_RIGHT("CMD", "startCeiling RIGHT");
+
+    /** 日志级别（过滤用，见 EventFilter） */
+    public enum Level { DEBUG, INFO }
+
+    /** detail 的拼法 */
+    public enum Kind {
+        FIXED,       // 固定文本
+        NUMBER,      // prefix + 数字 + suffix
+        TRANSITION,  // 两个状态名 "A->B"
+        TEXT         // 调用方给的自由文本（唯一需要清洗逗号/换行的）
+    }
+
+    public final String action;
+    public final Kind kind;
+    public final Level level;
+    private final String prefix, suffix;
+
+    PetEvent(String action)                 { this(action, Kind.FIXED, "", "", Level.INFO); }
+    PetEvent(String action, String fixed)   { this(action, Kind.FIXED, fixed, "", Level.INFO); }
+    PetEvent(String action, String fixed, Level level) { this(action, Kind.FIXED, fixed, "", level); }
+    PetEvent(String action, Kind kind)      { this(action, kind, "", "", Level.INFO); }
+    PetEvent(String action, Kind kind, Level level) { this(action, kind, "", "", level); }
+    PetEvent(String action, String prefix, String suffix) { this(action, Kind.NUMBER, prefix, suffix, Level.INFO); }
+
+    PetEvent(String action, Kind kind, String prefix, String suffix, Level level) {
+        this.action = action;
+        this.kind = kind;
+        this.prefix = prefix;
+        this.suffix = suffix;
+        this.level = level;
+    }
+
+    /** FIXED 事件的 detail 常量（其它类型返回 null） */
+    public String fixedDetail() { return kind == Kind.FIXED ? prefix : null; }
+
+    /** 在写线程里把 detail 拼进 sb（CSV 安全：自由文本里的逗号换成全角，换行换成空格） */
+    public void appendDetail(StringBuilder sb, long num, Enum<?> from, Enum<?> to, String text) {
+        switch (kind) {
+            case FIXED:
+                sb.append(prefix);
+                break;
+            case NUMBER:
+                sb.append(prefix).append(num).append(suffix);
+                break;
+            case TRANSITION:
+                sb.append(from == null ? "?" : from.name()).append("->").append(to == null ? "?" : to.name());
+                break;
+            case TEXT:
+                if (text == null) break;
+                for (int k = 0; k < text.length(); k++) {
+                    char c = text.charAt(k);
+                    sb.append(c == '\n' || c == '\r' ? ' ' : c == ',' ? '；' : c);
+                }
+                break;
+        }
+    }
+}
@@ -0,0 +1,306 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * 紧凑二进制日志（.petlog）及其转 CSV 工具。
+ *
+ * 文件头：'P' 'L' 'O' 'G'，版本号 1 字节，会话起始墙钟毫秒 8 字节。
+ * 之后是一条条记录，首字节是类型：
+ *   DEF_ACTION / DEF_STATE / DEF_DETAIL  id(varint) 长度(varint) UTF-8 字节   —— 首次出现时登记字典
+ *   EVENT         action(varint) state(varint) Δuptime Δtick Δx Δy(zigzag varint) detail(varint，0=空)
+ *   EVENT_INLINE  同上，但 detail 直接内联（字典满了以后用）
+ *   TRAILER       记录数(varint) 之前的字节数(varint) 之前所有字节的 CRC32(4 字节)  —— 段正常关闭时写在最后
+ * 时间列不落盘，转换时由 起始墙钟 + uptime 还原，与 CSV 的列完全一致。
+ *
+ * 转换：java -cp bin PetLogCodec logs/pet-xxxx.petlog[.gz] [输出.csv]
+ */
+public final class PetLogCodec {
+
+    static final byte[] MAGIC = {'P', 'L', 'O', 'G'};
+    static final int VERSION = 1;
+
+    static final int DEF_ACTION   = 1;
+    static final int DEF_STATE    = 2;
+    static final int DEF_DETAIL   = 3;
+    static final int EVENT        = 16;
+    static final int EVENT_INLINE = 17;
+    static final int TRAILER      = 32;
+
+    private static final int MAX_DETAIL_DICT = 4096;   // 细节字典上限，防止 "gap=xxxxx" 这类值撑爆内存
+
+    public static final String CSV_HEADER = "time,uptime_ms,tick,action,state,x,y,detail";
+    private static final DateTimeFormatter ISO = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private PetLogCodec() { }
+
+    // ===== 编码（由 PetRecorder 的写线程独占使用）=====
+    public static final class Encoder implements Closeable, Flushable {
+        private final OutputStream out;
+        private final Map<String, Integer> actions = new HashMap<>();
+        private final Map<String, Integer> states  = new HashMap<>();
+        private final Map<String, Integer> details = new HashMap<>();
+        private long lastUptime = 0;
+        private int lastTick = 0, lastX = 0, lastY = 0;
+
+        public Encoder(OutputStream out, long startWallMs) throws IOException {
+            this.out = out;
+            out.write(MAGIC);
+            out.write(VERSION);
+            writeLong(out, startWallMs);
+        }
+
+        public void write(long uptimeMs, int tick, String action, String state, int x, int y, String detail)
+                throws IOException {
+            int a = id(actions, DEF_ACTION, action);
+            int s = id(states, DEF_STATE, state);
+            int d = 0;
+            boolean inline = false;
+            if (detail != null && !detail.isEmpty()) {
+                Integer known = details.get(detail);
+                if (known != null) d = known;
+                else if (details.size() < MAX_DETAIL_DICT) d = id(details, DEF_DETAIL, detail);
+                else inline = true;
+            }
+            out.write(inline ? EVENT_INLINE : EVENT);
+            writeVarint(out, a);
+            writeVarint(out, s);
+            writeVarint(out, zigzag(uptimeMs - lastUptime));
+            writeVarint(out, zigzag(tick - lastTick));
+            writeVarint(out, zigzag(x - lastX));
+            writeVarint(out, zigzag(y - lastY));
+            if (inline) writeString(out, detail);
+            else writeVarint(out, d);
+            lastUptime = uptimeMs; lastTick = tick; lastX = x; lastY = y;
+        }
+
+        // 字典 id 从 1 开始；第一次遇到时先写一条定义
+        private int id(Map<String, Integer> dict, int defTag, String value) throws IOException {
+            if (value == null) value = "";
+            Integer id = dict.get(value);
+            if (id != null) return id;
+            id = dict.size() + 1;
+            dict.put(value, id);
+            out.write(defTag);
+            writeVarint(out, id);
+            writeString(out, value);
+            return id;
+        }
+
+        @Override public void flush() throws IOException { out.flush(); }
+        @Override public void close() throws IOException { out.close(); }
+    }
+
+    /** 段尾：records 条事件，之前共 bytes 字节，CRC32 为 crc */
+    static void writeTrailer(OutputStream out, long records, long bytes, int crc) throws IOException {
+        out.write(TRAILER);
+        writeVarint(out, records);
+        writeVarint(out, bytes);
+        writeLong4(out, crc);
+    }
+
+    // ===== 解码 =====
+    /** 解码结束时段尾的情况；没有段尾说明写的进程没正常关段（崩溃/断电），末尾可能少数据 */
+    public static final class Tail {
+        public boolean hasTrailer;   // 读到了段尾记录
+        public boolean valid;        // 段尾的记录数、字节数、CRC 全部对得上
+        public boolean torn;         // 末尾有写了一半的记录
+        public long declaredRecords = -1;
+    }
+
+    public interface Sink {
+        void event(long wallMs, long uptimeMs, int tick, String action, String state, int x, int y, String detail)
+                throws IOException;
+    }
+
+    /**
+     * 顺序读出全部事件；末尾被截断的半条记录直接忽略（进程被杀时最后一条可能没写完）。
+     * @return 读出的事件数
+     */
+    public static long decode(InputStream rawIn, Sink sink) throws IOException {
+        return decode(rawIn, sink, null);
+    }
+
+    /** 同上，并把段尾校验结果填进 tail（可为 null） */
+    public static long decode(InputStream rawIn, Sink sink, Tail tail) throws IOException {
+        CountingCheckedStream cin = new CountingCheckedStream(new BufferedInputStream(rawIn, 1 << 16));
+        DataInputStream in = new DataInputStream(cin);
+        byte[] magic = new byte[4];
+        in.readFully(magic);
+        for (int i = 0; i < 4; i++) if (magic[i] != MAGIC[i]) throw new IOException("不是 petlog 文件");
+        int ver = in.readUnsignedByte();
+        if (ver != VERSION) throw new IOException("不支持的 petlog 版本: " + ver);
+        long startWallMs = in.readLong();
+
+        List<String> actions = new ArrayList<>(), states = new ArrayList<>(), details = new ArrayList<>();
+        actions.add(""); states.add(""); details.add("");
+        long uptime = 0; int tick = 0, x = 0, y = 0;
+        long count = 0;
+        try {
+            int tag;
+            while (true) {
+                long crcBefore = cin.crc.getValue();
+                long bytesBefore = cin.count;
+                if ((tag = in.read()) < 0) break;
+                if (tag == TRAILER) {
+                    long records = readVarint(in);
+                    long bytes = readVarint(in);
+                    long crc = in.readInt() & 0xFFFFFFFFL;
+                    boolean ok = records == count && bytes == bytesBefore && crc == crcBefore && in.read() < 0;
+                    if (!ok) System.err.println("[PetLogCodec] 段尾校验不一致（记录 " + records + "/" + count + "）");
+                    if (tail != null) { tail.hasTrailer = true; tail.valid = ok; tail.declaredRecords = records; }
+                    break;
+                }
+                switch (tag) {
+                    case DEF_ACTION: define(in, actions); break;
+                    case DEF_STATE:  define(in, states);  break;
+                    case DEF_DETAIL: define(in, details); break;
+                    case EVENT:
+                    case EVENT_INLINE: {
+                        int a = (int) readVarint(in);
+                        int s = (int) readVarint(in);
+                        long du = unzigzag(readVarint(in));
+                        int dt = (int) unzigzag(readVarint(in));
+                        int dx = (int) unzigzag(readVarint(in));
+                        int dy = (int) unzigzag(readVarint(in));
+                        String detail = (tag == EVENT_INLINE) ? readString(in) : details.get((int) readVarint(in));
+                        uptime += du; tick += dt; x += dx; y += dy;
+                        sink.event(startWallMs + uptime, uptime, tick, actions.get(a), states.get(s), x, y, detail);
+                        count++;
+                        break;
+                    }
+                    default:
+                        throw new IOException("未知记录类型 " + tag + "（第 " + count + " 条之后）");
+                }
+            }
+        } catch (EOFException torn) {
+            System.err.println("[PetLogCodec] 文件末尾有半条记录，已忽略");
+            if (tail != null) tail.torn = true;
+        }
+        return count;
+    }
+
+    private static void define(DataInputStream in, List<String> dict) throws IOException {
+        int id = (int) readVarint(in);
+        String v = readString(in);
+        while (dict.size() <= id) dict.add("");
+        dict.set(id, v);
+    }
+
+    /** 二进制 → CSV（列与 PetRecorder 的 CSV 完全一致）；LogJanitor 压过的 .gz 段先解压 */
+    public static long toCsv(Path in, Path out) throws IOException {
+        InputStream raw = Files.newInputStream(in);
+        if (in.getFileName().toString().endsWith(".gz")) raw = new GZIPInputStream(raw, 1 << 16);
+        try (InputStream is = raw;
+             Writer w = Files.newBufferedWriter(out, StandardCharsets.UTF_8)) {
+            w.write(CSV_HEADER);
+            w.write('\n');
+            StringBuilder sb = new StringBuilder(128);
+            long[] cachedSec = {Long.MIN_VALUE};
+            String[] cachedText = {""};
+            return decode(is, (wallMs, uptimeMs, tick, action, state, x, y, detail) -> {
+                long sec = Math.floorDiv(wallMs, 1000L);
+                if (sec != cachedSec[0]) {
+                    cachedSec[0] = sec;
+                    cachedText[0] = LocalDateTime.ofInstant(Instant.ofEpochSecond(sec), ZoneId.systemDefault()).format(ISO);
+                }
+                sb.setLength(0);
+                sb.append(cachedText[0]).append(',').append(uptimeMs).append(',').append(tick).append(',')
+                  .append(action).append(',').append(state).append(',').append(x).append(',').append(y).append(',')
+                  .append(detail.replace('\n', ' ').replace(',', '；')).append('\n');
+                w.append(sb);
+            });
+        }
+    }
+
+    // ===== varint / zigzag =====
+    static long zigzag(long v)   { return (v << 1) ^ (v >> 63); }
+    static long unzigzag(long v) { return (v >>> 1) ^ -(v & 1); }
+
+    static void writeVarint(OutputStream out, long v) throws IOException {
+        while ((v & ~0x7FL) != 0) {
+            out.write((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.write((int) v);
+    }
+
+    static long readVarint(DataInputStream in) throws IOException {
+        long v = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            v |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return v;
+        }
+        throw new IOException("varint 过长");
+    }
+
+    static void writeString(OutputStream out, String s) throws IOException {
+        byte[] b = s.getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, b.length);
+        out.write(b);
+    }
+
+    static String readString(DataInputStream in) throws IOException {
+        int n = (int) readVarint(in);
+        byte[] b = new byte[n];
+        in.readFully(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    private static void writeLong(OutputStream out, long v) throws IOException {
+        for (int i = 56; i >= 0; i -= 8) out.write((int) (v >>> i));
+    }
+
+    private static void writeLong4(OutputStream out, int v) throws IOException {
+        for (int i = 24; i >= 0; i -= 8) out.write(v >>> i);
+    }
+
+    // 解码时边读边算 CRC 和字节数，用来核对段尾
+    private static final class CountingCheckedStream extends FilterInputStream {
+        final java.util.zip.CRC32 crc = new java.util.zip.CRC32();
+        long count;
+        CountingCheckedStream(InputStream in) { super(in); }
+        @Override public int read() throws IOException {
+            int b = in.read();
+            if (b >= 0) { crc.update(b); count++; }
+            return b;
+        }
+        @Override public int read(byte[] b, int off, int len) throws IOException {
+            int n = in.read(b, off, len);
+            if (n > 0) { crc.update(b, off, n); count += n; }
+            return n;
+        }
+        @Override public long skip(long n) throws IOException {
+            long k = 0;
+            while (k < n && read() >= 0) k++;
+            return k;
+        }
+    }
+
+    /** 默认输出名：x.petlog / x.petlog.gz → 同目录的 x.csv */
+    static Path csvPathFor(Path in) {
+        String name = in.getFileName().toString().replaceAll("\\.petlog(\\.gz)?$", "");
+        return in.resolveSibling(name + ".csv");
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("用法: java -cp bin PetLogCodec <日志.petlog[.gz]> [输出.csv]");
+            return;
+        }
+        Path in = Paths.get(args[0]);
+        Path out = args.length > 1 ? Paths.get(args[1]) : csvPathFor(in);
+        long n = toCsv(in, out);
+        System.out.println("已转换 " + n + " 条 → " + out);
+    }
+}
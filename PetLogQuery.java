@@ -0,0 +1,455 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.zone.ZoneRules;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * 日志查询工具：并行扫 logs/ 下所有日志段，回答
+ *   - 每个状态待了多久（相邻两行 uptime 之差记到前一行的状态上）
+ *   - 状态转移次数（相邻两行状态不同就算一次）
+ *   - 各 action 出现次数
+ *
+ * CSV 段用内存映射直接在字节上解析，行内不创建 String（只有第一次见到的动作/状态名才建一次）；
+ * .gz 段先解压到内存再同样解析；.petlog 段走 PetLogCodec 解码。
+ * 每个段旁边维护一个稀疏时间索引（logs/.index/，每 64KB 一个 (秒, 偏移)），
+ * 按时间范围查询时二分定位起点、越过终点即停。
+ *
+ * 用法：java -cp bin PetLogQuery [--dir logs] [--from 2025-08-18[T12:00]] [--to 2025-08-20] [--top 20]
+ */
+public final class PetLogQuery {
+
+    private static final int INDEX_STRIDE = 64 * 1024;
+    private static final byte[] INDEX_MAGIC = {'P', 'I', 'D', 'X'};
+    private static final int INDEX_VERSION = 1;
+
+    private final Path dir;
+    private final long fromSec, toSec;   // [from, to)，闭开区间，单位：epoch 秒
+
+    public PetLogQuery(Path dir, long fromSec, long toSec) {
+        this.dir = dir;
+        this.fromSec = fromSec;
+        this.toSec = toSec;
+    }
+
+    // ===== 统计结果（每个文件一份，最后按名字合并）=====
+    static final class Stats {
+        final Interner states = new Interner(), actions = new Interner();
+        long[] dwellMs = new long[32];
+        long[] actionCount = new long[64];
+        long[][] trans = new long[32][32];
+        long rows = 0;
+        long files = 0;
+        long unclosed = 0;   // 没有段尾：崩溃留下的（或旧版本写的）段，最后一条可能不完整
+
+        void row(int stateId, int actionId) {
+            rows++;
+            actionCount = grow(actionCount, actionId);
+            actionCount[actionId]++;
+        }
+        void dwell(int stateId, long ms) {
+            dwellMs = grow(dwellMs, stateId);
+            dwellMs[stateId] += ms;
+        }
+        void transition(int from, int to) {
+            int need = Math.max(from, to) + 1;
+            if (need > trans.length) {
+                long[][] t = new long[need * 2][need * 2];
+                for (int i = 0; i < trans.length; i++) System.arraycopy(trans[i], 0, t[i], 0, trans[i].length);
+                trans = t;
+            }
+            trans[from][to]++;
+        }
+        private static long[] grow(long[] a, int idx) {
+            return idx < a.length ? a : Arrays.copyOf(a, Math.max(idx + 1, a.length * 2));
+        }
+    }
+
+    /** 合并后的最终结果（按名字） */
+    public static final class Result {
+        public final Map<String, Long> dwellMs = new TreeMap<>();
+        public final Map<String, Long> actions = new TreeMap<>();
+        public final Map<String, Long> transitions = new TreeMap<>();
+        public long rows, files, unclosed;
+
+        void merge(Stats s) {
+            rows += s.rows;
+            files += s.files;
+            unclosed += s.unclosed;
+            for (int i = 0; i < s.states.size(); i++) {
+                if (i < s.dwellMs.length && s.dwellMs[i] != 0) dwellMs.merge(s.states.name(i), s.dwellMs[i], Long::sum);
+            }
+            for (int i = 0; i < s.actions.size(); i++) {
+                if (i < s.actionCount.length && s.actionCount[i] != 0) actions.merge(s.actions.name(i), s.actionCount[i], Long::sum);
+            }
+            for (int f = 0; f < s.trans.length; f++) {
+                for (int t = 0; t < s.trans[f].length; t++) {
+                    if (s.trans[f][t] != 0) {
+                        transitions.merge(s.states.name(f) + "->" + s.states.name(t), s.trans[f][t], Long::sum);
+                    }
+                }
+            }
+        }
+    }
+
+    // 字节串 → 小整数 id；只有第一次遇到时创建 String
+    static final class Interner {
+        private byte[][] keys = new byte[64][];
+        private int[] ids = new int[64];
+        private final List<String> names = new ArrayList<>();
+        private final Map<String, Integer> byName = new HashMap<>();
+
+        int size() { return names.size(); }
+        String name(int id) { return names.get(id); }
+
+        int id(ByteBuffer buf, int from, int to) {
+            int h = 1;
+            for (int i = from; i < to; i++) h = 31 * h + buf.get(i);
+            int mask = keys.length - 1;
+            for (int slot = h & mask; ; slot = (slot + 1) & mask) {
+                byte[] k = keys[slot];
+                if (k == null) {
+                    byte[] copy = new byte[to - from];
+                    for (int i = 0; i < copy.length; i++) copy[i] = buf.get(from + i);
+                    int id = id(new String(copy, java.nio.charset.StandardCharsets.UTF_8));
+                    keys[slot] = copy;
+                    ids[slot] = id;
+                    if (names.size() * 2 > keys.length) rehash();
+                    return id;
+                }
+                if (k.length == to - from && same(k, buf, from)) return ids[slot];
+            }
+        }
+
+        int id(String name) {
+            Integer id = byName.get(name);
+            if (id != null) return id;
+            id = names.size();
+            names.add(name);
+            byName.put(name, id);
+            return id;
+        }
+
+        private static boolean same(byte[] k, ByteBuffer buf, int from) {
+            for (int i = 0; i < k.length; i++) if (k[i] != buf.get(from + i)) return false;
+            return true;
+        }
+
+        private void rehash() {
+            byte[][] ok = keys; int[] oi = ids;
+            keys = new byte[ok.length * 2][];
+            ids = new int[ok.length * 2];
+            int mask = keys.length - 1;
+            for (int j = 0; j < ok.length; j++) {
+                if (ok[j] == null) continue;
+                int h = 1;
+                for (byte b : ok[j]) h = 31 * h + b;
+                int slot = h & mask;
+                while (keys[slot] != null) slot = (slot + 1) & mask;
+                keys[slot] = ok[j];
+                ids[slot] = oi[j];
+            }
+        }
+    }
+
+    // ===== 入口 =====
+    public Result run() throws IOException {
+        List<Path> files;
+        try (Stream<Path> s = Files.list(dir)) {
+            files = s.filter(LogJanitor::isSegment).sorted().collect(Collectors.toList());
+        }
+        Result r = new Result();
+        files.parallelStream()
+             .map(this::scanQuietly)
+             .filter(Objects::nonNull)
+             .collect(Collectors.toList())
+             .forEach(r::merge);
+        return r;
+    }
+
+    private Stats scanQuietly(Path p) {
+        try {
+            return scan(p);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("[PetLogQuery] 跳过 " + p.getFileName() + ": " + e);
+            return null;
+        }
+    }
+
+    Stats scan(Path p) throws IOException {
+        String n = p.getFileName().toString();
+        if (n.endsWith(".petlog") || n.endsWith(".petlog.gz")) return scanBinary(p);
+        if (n.endsWith(".gz")) {
+            byte[] bytes;
+            try (InputStream in = new GZIPInputStream(Files.newInputStream(p), 1 << 16)) {
+                bytes = in.readAllBytes();
+            }
+            return scanCsv(p, ByteBuffer.wrap(bytes));
+        }
+        try (FileChannel ch = FileChannel.open(p, StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size > Integer.MAX_VALUE) throw new IOException("文件过大");
+            MappedByteBuffer mb = ch.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            return scanCsv(p, mb);
+        }
+    }
+
+    // ===== CSV：在字节上逐行解析 =====
+    private Stats scanCsv(Path p, ByteBuffer buf) throws IOException {
+        Stats st = new Stats();
+        st.files = 1;
+        int limit = buf.limit();
+        if (!endsWithTrailer(buf, limit)) st.unclosed = 1;
+        SparseIndex idx = SparseIndex.load(indexPath(p), p, limit);
+        boolean building = (idx == null);
+        if (building) idx = new SparseIndex();
+
+        int pos = 0;
+        if (!building && fromSec != Long.MIN_VALUE) pos = idx.offsetBefore(fromSec);
+        if (pos == 0) pos = skipLine(buf, 0);                  // 跳过表头
+
+        TimeParser tp = new TimeParser();
+        int prevState = -1;
+        long prevUptime = 0;
+        int nextMark = building ? pos : Integer.MAX_VALUE;
+
+        while (pos < limit) {
+            int lineEnd = indexOf(buf, (byte) '\n', pos, limit);
+            if (lineEnd < 0) break;                            // 最后一行没写完（进程被杀）
+            int start = pos;
+            pos = lineEnd + 1;
+            if (buf.get(start) == '#') continue;               // 段尾标记等注释行
+            // time,uptime_ms,tick,action,state,x,y,detail
+            int c1 = indexOf(buf, (byte) ',', start, lineEnd);
+            if (c1 < 0) continue;
+            int c2 = indexOf(buf, (byte) ',', c1 + 1, lineEnd);
+            int c3 = c2 < 0 ? -1 : indexOf(buf, (byte) ',', c2 + 1, lineEnd);
+            int c4 = c3 < 0 ? -1 : indexOf(buf, (byte) ',', c3 + 1, lineEnd);
+            int c5 = c4 < 0 ? -1 : indexOf(buf, (byte) ',', c4 + 1, lineEnd);
+            if (c5 < 0) continue;
+
+            long sec = tp.parse(buf, start, c1);
+            if (building && start >= nextMark) {
+                idx.add(sec, start);
+                nextMark = start + INDEX_STRIDE;
+            }
+            if (sec < fromSec) continue;
+            if (sec >= toSec) {
+                if (building) continue;                        // 建索引时要扫完整个文件
+                break;
+            }
+
+            long uptime = parseLong(buf, c1 + 1, c2);
+            int action = st.actions.id(buf, c3 + 1, c4);
+            int state  = st.states.id(buf, c4 + 1, c5);
+            st.row(state, action);
+            if (prevState >= 0) {
+                long d = uptime - prevUptime;
+                if (d > 0) st.dwell(prevState, d);
+                if (prevState != state) st.transition(prevState, state);
+            }
+            prevState = state;
+            prevUptime = uptime;
+        }
+        if (building) idx.save(indexPath(p), p, limit);
+        return st;
+    }
+
+    // ===== 二进制段 =====
+    private Stats scanBinary(Path p) throws IOException {
+        Stats st = new Stats();
+        st.files = 1;
+        long[] prev = {-1, 0};  // prevState, prevUptime
+        PetLogCodec.Tail tail = new PetLogCodec.Tail();
+        InputStream raw = Files.newInputStream(p);
+        if (p.getFileName().toString().endsWith(".gz")) raw = new GZIPInputStream(raw, 1 << 16);
+        try (InputStream in = raw) {
+            PetLogCodec.decode(in, (wallMs, uptimeMs, tick, action, state, x, y, detail) -> {
+                long sec = Math.floorDiv(wallMs, 1000L);
+                if (sec < fromSec || sec >= toSec) return;
+                int a = st.actions.id(action);
+                int s = st.states.id(state);
+                st.row(s, a);
+                if (prev[0] >= 0) {
+                    long d = uptimeMs - prev[1];
+                    if (d > 0) st.dwell((int) prev[0], d);
+                    if (prev[0] != s) st.transition((int) prev[0], s);
+                }
+                prev[0] = s;
+                prev[1] = uptimeMs;
+            }, tail);
+        }
+        if (!tail.hasTrailer) st.unclosed = 1;
+        return st;
+    }
+
+    private Path indexPath(Path p) { return dir.resolve(".index").resolve(p.getFileName() + ".idx"); }
+
+    // ===== 稀疏时间索引 =====
+    static final class SparseIndex {
+        long[] secs = new long[16];
+        int[] offs = new int[16];
+        int n = 0;
+
+        void add(long sec, int off) {
+            if (n == secs.length) { secs = Arrays.copyOf(secs, n * 2); offs = Arrays.copyOf(offs, n * 2); }
+            secs[n] = sec; offs[n] = off; n++;
+        }
+
+        /** 最后一个时间 < sec 的索引点的偏移（从那里往后扫不会漏行）；没有则 0 */
+        int offsetBefore(long sec) {
+            int lo = 0, hi = n - 1, ans = -1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                if (secs[mid] < sec) { ans = mid; lo = mid + 1; } else hi = mid - 1;
+            }
+            return ans < 0 ? 0 : offs[ans];
+        }
+
+        // 索引对应的内容长度 + 源文件修改时间都对得上才用
+        static SparseIndex load(Path idxFile, Path src, int contentLen) {
+            if (!Files.isRegularFile(idxFile)) return null;
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(idxFile)))) {
+                byte[] m = new byte[4];
+                in.readFully(m);
+                if (!Arrays.equals(m, INDEX_MAGIC) || in.readInt() != INDEX_VERSION) return null;
+                long len = in.readLong(), mtime = in.readLong();
+                if (len != contentLen || mtime != Files.getLastModifiedTime(src).toMillis()) return null;
+                SparseIndex idx = new SparseIndex();
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) idx.add(in.readLong(), in.readInt());
+                return idx;
+            } catch (IOException e) {
+                return null;
+            }
+        }
+
+        void save(Path idxFile, Path src, int contentLen) {
+            try {
+                Files.createDirectories(idxFile.getParent());
+                Path tmp = idxFile.resolveSibling(idxFile.getFileName() + ".tmp");
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                    out.write(INDEX_MAGIC);
+                    out.writeInt(INDEX_VERSION);
+                    out.writeLong(contentLen);
+                    out.writeLong(Files.getLastModifiedTime(src).toMillis());
+                    out.writeInt(n);
+                    for (int i = 0; i < n; i++) { out.writeLong(secs[i]); out.writeInt(offs[i]); }
+                }
+                Files.move(tmp, idxFile, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                System.err.println("[PetLogQuery] 写索引失败 " + idxFile + ": " + e);
+            }
+        }
+    }
+
+    // "yyyy-MM-dd HH:mm:ss" → epoch 秒；时区偏移按小时缓存
+    static final class TimeParser {
+        private final ZoneRules rules = ZoneId.systemDefault().getRules();
+        private long cachedHourKey = Long.MIN_VALUE;
+        private long cachedHourEpoch;
+
+        long parse(ByteBuffer b, int from, int to) {
+            if (to - from < 19) return Long.MIN_VALUE;
+            int y  = digits(b, from, 4), mo = digits(b, from + 5, 2), d = digits(b, from + 8, 2);
+            int h  = digits(b, from + 11, 2), mi = digits(b, from + 14, 2), s = digits(b, from + 17, 2);
+            long key = ((y * 100L + mo) * 100 + d) * 100 + h;
+            if (key != cachedHourKey) {
+                LocalDateTime ldt = LocalDateTime.of(y, mo, d, h, 0);
+                cachedHourEpoch = ldt.toEpochSecond(rules.getOffset(ldt));
+                cachedHourKey = key;
+            }
+            return cachedHourEpoch + mi * 60L + s;
+        }
+
+        private static int digits(ByteBuffer b, int at, int n) {
+            int v = 0;
+            for (int i = 0; i < n; i++) v = v * 10 + (b.get(at + i) - '0');
+            return v;
+        }
+    }
+
+    private static int indexOf(ByteBuffer b, byte c, int from, int to) {
+        for (int i = from; i < to; i++) if (b.get(i) == c) return i;
+        return -1;
+    }
+
+    // 最后一行是不是 PetRecorder 正常关段时写的 "#END,..."
+    private static boolean endsWithTrailer(ByteBuffer b, int limit) {
+        if (limit == 0 || b.get(limit - 1) != '\n') return false;
+        int start = limit - 1;
+        while (start > 0 && b.get(start - 1) != '\n') start--;
+        String prefix = PetRecorder.CSV_TRAILER_PREFIX;
+        if (limit - start < prefix.length()) return false;
+        for (int i = 0; i < prefix.length(); i++) if (b.get(start + i) != prefix.charAt(i)) return false;
+        return true;
+    }
+
+    private static int skipLine(ByteBuffer b, int from) {
+        int e = indexOf(b, (byte) '\n', from, b.limit());
+        return e < 0 ? b.limit() : e + 1;
+    }
+
+    private static long parseLong(ByteBuffer b, int from, int to) {
+        long v = 0;
+        boolean neg = false;
+        for (int i = from; i < to; i++) {
+            byte c = b.get(i);
+            if (c == '-') neg = true;
+            else v = v * 10 + (c - '0');
+        }
+        return neg ? -v : v;
+    }
+
+    // ===== 命令行 =====
+    private static long parseWhen(String s) {
+        ZoneId z = ZoneId.systemDefault();
+        if (s.length() <= 10) return LocalDate.parse(s).atStartOfDay(z).toEpochSecond();
+        return LocalDateTime.parse(s.replace(' ', 'T')).atZone(z).toEpochSecond();
+    }
+
+    private static String hms(long ms) {
+        long s = ms / 1000;
+        return String.format("%d:%02d:%02d", s / 3600, (s % 3600) / 60, s % 60);
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path dir = Paths.get("logs");
+        long from = Long.MIN_VALUE, to = Long.MAX_VALUE;
+        int top = 20;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--dir":  dir = Paths.get(args[i + 1]); break;
+                case "--from": from = parseWhen(args[i + 1]); break;
+                case "--to":   to = parseWhen(args[i + 1]); break;
+                case "--top":  top = Integer.parseInt(args[i + 1]); break;
+                default: System.err.println("未知参数 " + args[i]);
+            }
+        }
+        long t0 = System.nanoTime();
+        Result r = new PetLogQuery(dir, from, to).run();
+        long ms = (System.nanoTime() - t0) / 1_000_000L;
+
+        System.out.println("扫描 " + r.files + " 个日志段，" + r.rows + " 行，用时 " + ms + " ms");
+        if (r.unclosed > 0) System.out.println("其中 " + r.unclosed + " 个段没有段尾（崩溃或旧版本写的，末尾可能不完整）");
+        long total = r.dwellMs.values().stream().mapToLong(Long::longValue).sum();
+        System.out.println("\n== 各状态停留时长 ==");
+        r.dwellMs.entrySet().stream().sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .forEach(e -> System.out.printf("%-24s %12s  %5.1f%%%n", e.getKey(), hms(e.getValue()),
+                        total == 0 ? 0.0 : e.getValue() * 100.0 / total));
+        System.out.println("\n== 状态转移次数（前 " + top + "）==");
+        r.transitions.entrySet().stream().sorted(Map.Entry.<String, Long>comparingByValue().reversed()).limit(top)
+                .forEach(e -> System.out.printf("%-48s %8d%n", e.getKey(), e.getValue()));
+        System.out.println("\n== 动作次数 ==");
+        r.actions.entrySet().stream().sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .forEach(e -> System.out.printf("%-32s %8d%n", e.getKey(), e.getValue()));
+    }
+}
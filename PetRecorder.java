@@ -1,44 +1,469 @@
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.CRC32;
 
+/**
+ * 动作日志。log() 只往环形缓冲里填几个字段就返回（单生产者：宠物的 tick 线程，即 EDT），
+ * 事件是 PetEvent 枚举 + 原始类型参数，detail 文本的拼接、格式化、写盘、flush
+ * 都在后台 PetRecorder 线程里成批完成。
+ * 缓冲满了就丢掉新事件并计数（不阻塞 tick）。
+ *
+ * 输出格式：CSV（默认，人能直接看）或 BINARY（.petlog，体积小一个数量级，用 PetLogCodec 转回 CSV）。
+ *
+ * 分段：单段超过大小或时长就换新文件（pet-yyyyMMdd-HHmmss.*），关闭的段交给 LogJanitor
+ * 在低优先级线程里 gzip 并按保留策略清理，logs/ 的占用因此有上限。写的段一直握着文件锁，
+ * 几只宠物共用 logs/ 时谁也不会压掉/删掉别人正在写的段。
+ *
+ * 持久性（Durability）：BUFFERED 只按间隔 flush 到操作系统；GROUP_COMMIT 攒够 N 毫秒或 M 条
+ * 才 flush + fsync 一次；STRICT 每批都 fsync。段正常关闭时写一个段尾（记录数 + 字节数 + CRC32），
+ * 读的一方没看到段尾就知道这段是崩溃留下的，最后一条可能不完整。
+ *
+ * 实时流：写线程把每条事件同时发给 LogStream 的订阅者（进程内 Flow.Publisher，
+ * 可选再经 LogStreamServer 转发到 logs/pet-<pid>.sock，同一进程里第二个起加 -2、-3），
+ * 订阅者跟不上只丢自己的旧事件。
+ */
 public class PetRecorder implements AutoCloseable {
+    public enum Format { CSV, BINARY }
+    public enum Durability { BUFFERED, GROUP_COMMIT, STRICT }
+
+    /** CSV 段尾行的前缀；完整形如 "#END,records=123,bytes=4567,crc=89abcdef" */
+    public static final String CSV_TRAILER_PREFIX = "#END,";
+
+    /** 日志配置；默认值适合整天挂着的桌宠 */
+    public static final class Options {
+        public Format  format          = Format.CSV;
+        public long    segmentBytes    = 8L << 20;                   // 单段 8MB
+        public long    segmentMs       = TimeUnit.HOURS.toMillis(1); // 单段 1 小时
+        public long    keepBytes       = 64L << 20;                  // logs/ 总共 64MB
+        public int     keepFiles       = 200;
+        public long    keepMs          = TimeUnit.DAYS.toMillis(30);
+        public boolean compress        = true;
+        public boolean adoptUntrailed  = false;                      // 没有段尾的旧段也压缩/按保留策略删
+        public Durability durability   = Durability.BUFFERED;
+        public long    flushMs         = 200;                        // BUFFERED：最多隔这么久 flush 一次
+        public long    groupMs         = 1000;                       // GROUP_COMMIT：最多隔这么久 fsync 一次
+        public int     groupEvents     = 256;                        // GROUP_COMMIT：或者攒够这么多条
+        public boolean streamSocket    = false;                      // 在 logs/pet-<pid>.sock 上开实时流
+        public int     streamBuffer    = LogStream.DEFAULT_BUFFER;   // 每个订阅者最多积压多少条
+
+        /**
+         * 从 -Dpet.log.* 读取：format=csv|binary, segmentMB, segmentMinutes, keepMB, keepFiles, keepDays, compress,
+         * adoptOld, durability=buffered|group|strict, flushMs, groupMs, groupEvents, stream, streamBuffer
+         */
+        public static Options fromSystemProperties() {
+            Options o = new Options();
+            if ("binary".equalsIgnoreCase(System.getProperty("pet.log.format"))) o.format = Format.BINARY;
+            String d = System.getProperty("pet.log.durability");
+            if (d != null) {
+                switch (d.trim().toLowerCase()) {
+                    case "buffered": o.durability = Durability.BUFFERED; break;
+                    case "group": case "group_commit": o.durability = Durability.GROUP_COMMIT; break;
+                    case "strict": o.durability = Durability.STRICT; break;
+                    default: System.err.println("[PetRecorder] 未知的 pet.log.durability: " + d);
+                }
+            }
+            o.flushMs      = Long.getLong("pet.log.flushMs", o.flushMs);
+            o.groupMs      = Long.getLong("pet.log.groupMs", o.groupMs);
+            o.groupEvents  = Integer.getInteger("pet.log.groupEvents", o.groupEvents);
+            o.streamSocket = Boolean.getBoolean("pet.log.stream");
+            o.streamBuffer = Integer.getInteger("pet.log.streamBuffer", o.streamBuffer);
+            o.segmentBytes = Long.getLong("pet.log.segmentMB", o.segmentBytes >> 20) << 20;
+            o.segmentMs    = TimeUnit.MINUTES.toMillis(Long.getLong("pet.log.segmentMinutes", TimeUnit.MILLISECONDS.toMinutes(o.segmentMs)));
+            o.keepBytes    = Long.getLong("pet.log.keepMB", o.keepBytes >> 20) << 20;
+            o.keepFiles    = Integer.getInteger("pet.log.keepFiles", o.keepFiles);
+            o.keepMs       = TimeUnit.DAYS.toMillis(Long.getLong("pet.log.keepDays", TimeUnit.MILLISECONDS.toDays(o.keepMs)));
+            String c = System.getProperty("pet.log.compress");
+            if (c != null) o.compress = Boolean.parseBoolean(c);
+            o.adoptUntrailed = Boolean.getBoolean("pet.log.adoptOld");
+            return o;
+        }
+    }
+
+    private static final int CAPACITY = 1 << 13;            // 8192 条，必须是 2 的幂
+    private static final int MASK = CAPACITY - 1;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(50); // 空闲时每 50ms 看一次
+    private static final long CLOSE_WAIT_MS = 2000;
+
     private final Path dir;
-    private final Path file;
-    private final PrintWriter out;
+    private final Options opt;
+    private final LogJanitor janitor;
     private final long startNanos = System.nanoTime();
+    private final long startWallMs = System.currentTimeMillis();
     private static final DateTimeFormatter TS  = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
     private static final DateTimeFormatter ISO = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
-    public PetRecorder(Path dir) {
+    // —— 当前段（只有写线程改；file 给外面看所以 volatile）—— //
+    private volatile Path file;
+    private FileChannel segChannel;           // fsync 用
+    private FileLock segLock;                 // 写的时候一直持有，别的进程的 LogJanitor 据此跳过
+    private CountingStream segOut;
+    private Writer out;                       // CSV
+    private PetLogCodec.Encoder bin;          // BINARY
+    private boolean segOpen;                  // 轮转失败或已收尾后为 false，之后的事件只计丢弃
+    private long segOpenedMs;
+    private long segRecords;
+    private final AtomicLong segments = new AtomicLong();
+
+    // —— 提交进度（只有写线程改）—— //
+    private long unflushed;                   // 写进缓冲但还没 flush 的条数
+    private long unsynced;                    // 还没 fsync 的条数
+    private long lastFlushMs, lastSyncMs;
+    private final AtomicLong syncs = new AtomicLong();
+
+    // —— 环形缓冲：按列存放，槽位复用，log() 不分配对象 —— //
+    private final long[]   slotNanos   = new long[CAPACITY];
+    private final int[]    slotTick    = new int[CAPACITY];
+    private final int[]    slotX       = new int[CAPACITY];
+    private final int[]    slotY       = new int[CAPACITY];
+    private final PetEvent[] slotEvent = new PetEvent[CAPACITY];
+    private final Enum<?>[] slotState  = new Enum<?>[CAPACITY];
+    private final long[]   slotNum     = new long[CAPACITY];
+    private final Enum<?>[] slotFrom   = new Enum<?>[CAPACITY];
+    private final Enum<?>[] slotTo     = new Enum<?>[CAPACITY];
+    private final String[] slotText    = new String[CAPACITY];
+
+    private final AtomicLong head = new AtomicLong(); // 下一个要写盘的序号（仅写线程推进）
+    private final AtomicLong tail = new AtomicLong(); // 下一个要填的序号（仅生产者推进）
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+
+    private final LogStream stream;
+    private LogStreamServer streamServer;
+
+    private final Thread writer;
+    private volatile boolean closing = false;
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    // 写线程私有：按秒缓存格式化好的时间串
+    private long   cachedSec = Long.MIN_VALUE;
+    private String cachedSecText = "";
+    private final StringBuilder line = new StringBuilder(128);
+    private final StringBuilder detailBuf = new StringBuilder(64);
+
+    public PetRecorder(Path dir) { this(dir, new Options()); }
+
+    public PetRecorder(Path dir, Format format) {
+        this(dir, withFormat(format));
+    }
+
+    public PetRecorder(Path dir, Options opt) {
+        this.dir = dir;
+        this.opt = opt;
+        this.janitor = new LogJanitor(dir, opt.keepBytes, opt.keepFiles, opt.keepMs, opt.compress,
+                opt.adoptUntrailed);
+        this.stream = new LogStream(opt.streamBuffer);
         try {
-            this.dir = dir;
             Files.createDirectories(dir);
-            String ts = LocalDateTime.now().format(TS);
-            this.file = dir.resolve("pet-" + ts + ".csv");
-            this.out = new PrintWriter(Files.newBufferedWriter(
-                    file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND));
-            out.println("time,uptime_ms,tick,action,state,x,y,detail");
-            out.flush();
+            openSegment();
         } catch (IOException e) {
             throw new RuntimeException("无法创建日志文件", e);
         }
+        if (opt.streamSocket) {
+            try {
+                streamServer = new LogStreamServer(dir.resolve(socketName()), stream);
+            } catch (IOException | UnsupportedOperationException e) {
+                System.err.println("[PetRecorder] 无法开启实时流 socket，仅保留进程内订阅: " + e);
+            }
+        }
+        janitor.sweep();
+        writer = new Thread(this::drainLoop, "PetRecorder");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // 每个 recorder 一个 socket 文件，几只宠物不会互相抢
+    private static final AtomicInteger SOCKETS = new AtomicInteger();
+
+    private static String socketName() {
+        int k = SOCKETS.incrementAndGet();
+        return "pet-" + ProcessHandle.current().pid() + (k == 1 ? "" : "-" + k) + ".sock";
+    }
+
+    private static Options withFormat(Format f) {
+        Options o = new Options();
+        o.format = f;
+        return o;
+    }
+
+    /**
+     * 记一条事件；只能由同一个线程（tick 线程）调用。
+     * num / from / to / text 按 ev.kind 取用，用不到的传 0 / null。
+     */
+    public void log(int tick, PetEvent ev, Enum<?> state, int x, int y,
+                    long num, Enum<?> from, Enum<?> to, String text) {
+        long t = tail.get();
+        if (t - head.get() >= CAPACITY) { dropped.incrementAndGet(); return; }
+        int i = (int) (t & MASK);
+        slotNanos[i] = System.nanoTime();
+        slotTick[i]  = tick;
+        slotX[i]     = x;
+        slotY[i]     = y;
+        slotEvent[i] = ev;
+        slotState[i] = state;
+        slotNum[i]   = num;
+        slotFrom[i]  = from;
+        slotTo[i]    = to;
+        slotText[i]  = text;
+        tail.lazySet(t + 1);                 // 发布：写线程看到 tail 就能看到槽位内容
+    }
+
+    // ===== 分段 =====
+    private void openSegment() throws IOException {
+        String ext = (opt.format == Format.BINARY) ? ".petlog" : ".csv";
+        String ts = LocalDateTime.now().format(TS);
+        Path p = dir.resolve("pet-" + ts + ext);
+        for (int k = 1; Files.exists(p) || Files.exists(p.resolveSibling(p.getFileName() + ".gz")); k++) {
+            p = dir.resolve("pet-" + ts + "-" + k + ext);   // 同一秒内再次分段
+        }
+        segChannel = FileChannel.open(p, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        try {
+            segLock = segChannel.tryLock();   // 关通道时自动释放
+        } catch (IOException e) {
+            segLock = null;                   // 文件系统不支持锁：只剩进程内的登记
+        }
+        segOut = new CountingStream(new BufferedOutputStream(Channels.newOutputStream(segChannel), 1 << 16));
+        if (opt.format == Format.BINARY) {
+            out = null;
+            bin = new PetLogCodec.Encoder(segOut, startWallMs);
+            bin.flush();
+        } else {
+            bin = null;
+            out = new OutputStreamWriter(segOut, StandardCharsets.UTF_8);
+            out.write(PetLogCodec.CSV_HEADER);
+            out.write('\n');
+            out.flush();
+        }
+        segOpenedMs = System.currentTimeMillis();
+        lastFlushMs = lastSyncMs = segOpenedMs;
+        segRecords = 0;
+        unflushed = unsynced = 0;
+        file = p;
+        segOpen = true;
+        janitor.setActive(p);
+        segments.incrementAndGet();
+    }
+
+    // 写段尾、落盘、关闭；段尾之前的字节数和 CRC 由 CountingStream 一路累计
+    private void closeSegment() {
+        if (!segOpen) return;
+        segOpen = false;
+        try {
+            if (bin != null) {
+                bin.flush();
+                PetLogCodec.writeTrailer(segOut, segRecords, segOut.count, (int) segOut.crc.getValue());
+            } else {
+                out.flush();
+                out.write(CSV_TRAILER_PREFIX + "records=" + segRecords + ",bytes=" + segOut.count
+                        + ",crc=" + String.format("%08x", segOut.crc.getValue()) + "\n");
+            }
+            segOut.flush();
+            segChannel.force(false);
+            if (bin != null) bin.close(); else out.close();
+        } catch (IOException e) {
+            System.err.println("[PetRecorder] 关闭日志段失败: " + e);
+        }
+    }
+
+    // 段太大或太旧就换新段，旧段交给 janitor 压缩
+    private void maybeRotate() {
+        boolean big = opt.segmentBytes > 0 && segOut.count >= opt.segmentBytes;
+        boolean old = opt.segmentMs > 0 && System.currentTimeMillis() - segOpenedMs >= opt.segmentMs;
+        if (!big && !old) return;
+        Path closed = file;
+        closeSegment();
+        try {
+            openSegment();
+        } catch (IOException e) {
+            System.err.println("[PetRecorder] 无法新建日志段，停止写盘: " + e);
+            closing = true;
+            return;
+        }
+        janitor.segmentClosed(closed);
+    }
+
+    // ===== 后台写线程 =====
+    private void drainLoop() {
+        while (true) {
+            boolean stop = closing;
+            int n = drainBatch();
+            if (stop && n == 0) break;
+            if (n == 0) {
+                commit();                 // 没新事件时也要让攒着的数据按时落盘
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+        }
+        // 收尾也在写线程里做：close() 等超时返回了，也不会有两个线程同时碰当前段
+        closeSegment();
+        if (segRecords == 0 && segments.get() > 1) {
+            try { Files.deleteIfExists(file); } catch (IOException ignore) { }  // 刚轮转出的空段
+        }
+        janitor.setActive(null);
+    }
+
+    // 按持久性模式决定这次要不要 flush / fsync
+    private void commit() {
+        if (!segOpen || unflushed == 0 && unsynced == 0) return;
+        long now = System.currentTimeMillis();
+        boolean flush, sync;
+        switch (opt.durability) {
+            case STRICT:
+                flush = sync = true;
+                break;
+            case GROUP_COMMIT:
+                sync = unsynced >= opt.groupEvents || now - lastSyncMs >= opt.groupMs;
+                flush = sync;
+                break;
+            default:
+                sync = false;
+                flush = now - lastFlushMs >= opt.flushMs;
+        }
+        if (!flush || unflushed == 0 && !sync) return;
+        try {
+            if (bin != null) bin.flush(); else out.flush();
+            lastFlushMs = now;
+            unflushed = 0;
+            if (sync) {
+                segChannel.force(false);
+                lastSyncMs = now;
+                unsynced = 0;
+                syncs.incrementAndGet();
+            }
+        } catch (IOException e) {
+            System.err.println("[PetRecorder] 写日志失败: " + e);
+        }
     }
 
-    public synchronized void log(int tick, String action, String state, int x, int y, String detail) {
-        String now = LocalDateTime.now().format(ISO);
-        long ms = (System.nanoTime() - startNanos) / 1_000_000L;
-        if (detail == null) detail = "";
-        detail = detail.replace('\n', ' ').replace(',', '；');
-        out.printf("%s,%d,%d,%s,%s,%d,%d,%s%n", now, ms, tick, action, state, x, y, detail);
-        out.flush();
+    // 把当前积压的事件一次性格式化写出，是否 flush / fsync 交给 commit()
+    private int drainBatch() {
+        long h = head.get();
+        long t = tail.get();
+        if (h == t) return 0;
+        if (!segOpen) {                               // 轮转失败后不再写盘
+            dropped.addAndGet(t - h);
+            head.lazySet(t);
+            return (int) (t - h);
+        }
+        boolean live = stream.hasSubscribers();       // 没人订阅就不构造 Event
+        try {
+            for (long s = h; s < t; s++) {
+                int i = (int) (s & MASK);
+                if (bin != null) {
+                    bin.write((slotNanos[i] - startNanos) / 1_000_000L, slotTick[i],
+                            slotEvent[i].action, stateName(i), slotX[i], slotY[i], detailString(i));
+                } else {
+                    appendCsv(i);
+                }
+                if (live) publish(i);
+                slotState[i] = null; slotFrom[i] = null; slotTo[i] = null; slotText[i] = null;
+            }
+        } catch (IOException e) {
+            System.err.println("[PetRecorder] 写日志失败: " + e);
+        }
+        written.addAndGet(t - h);
+        segRecords += t - h;
+        unflushed += t - h;
+        if (opt.durability != Durability.BUFFERED) unsynced += t - h;
+        head.lazySet(t);
+        commit();
+        maybeRotate();
+        return (int) (t - h);
+    }
+
+    private void appendCsv(int i) throws IOException {
+        long uptimeMs = (slotNanos[i] - startNanos) / 1_000_000L;
+        long wallMs = startWallMs + uptimeMs;
+        long sec = Math.floorDiv(wallMs, 1000L);
+        if (sec != cachedSec) {
+            cachedSec = sec;
+            cachedSecText = LocalDateTime.ofInstant(Instant.ofEpochSecond(sec), ZoneId.systemDefault()).format(ISO);
+        }
+        line.setLength(0);
+        line.append(cachedSecText).append(',')
+            .append(uptimeMs).append(',')
+            .append(slotTick[i]).append(',')
+            .append(slotEvent[i].action).append(',')
+            .append(stateName(i)).append(',')
+            .append(slotX[i]).append(',')
+            .append(slotY[i]).append(',');
+        slotEvent[i].appendDetail(line, slotNum[i], slotFrom[i], slotTo[i], slotText[i]);
+        line.append('\n');
+        out.append(line);
+    }
+
+    private void publish(int i) {
+        long uptimeMs = (slotNanos[i] - startNanos) / 1_000_000L;
+        stream.publish(new LogStream.Event(startWallMs + uptimeMs, uptimeMs, slotTick[i],
+                slotEvent[i].action, stateName(i), slotX[i], slotY[i], detailString(i)));
+    }
+
+    private String stateName(int i) { return slotState[i] == null ? "" : slotState[i].name(); }
+
+    // 二进制格式要字符串做字典键；固定文本直接用常量
+    private String detailString(int i) {
+        PetEvent ev = slotEvent[i];
+        String fixed = ev.fixedDetail();
+        if (fixed != null) return fixed;
+        detailBuf.setLength(0);
+        ev.appendDetail(detailBuf, slotNum[i], slotFrom[i], slotTo[i], slotText[i]);
+        return detailBuf.toString();
     }
 
     public Path getFile() { return file; }
+    public Format getFormat() { return opt.format; }
+    public Durability getDurability() { return opt.durability; }
+    public long getSyncCount() { return syncs.get(); }
+    /** 实时事件流；订阅后从下一条事件开始收 */
+    public LogStream getStream() { return stream; }
+    public long getSegmentCount() { return segments.get(); }
+    public long getDroppedCount() { return dropped.get(); }
+    public long getWrittenCount() { return written.get(); }
+    public int  getQueueDepth()   { return (int) (tail.get() - head.get()); }
 
+    /** 通知写线程写完剩下的事件并关段（段尾由写线程自己写），最多等 2 秒；可重复调用 */
     @Override
-    public void close() { out.close(); }
+    public void close() {
+        if (!closed.compareAndSet(false, true)) return;
+        closing = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(CLOSE_WAIT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writer.isAlive()) System.err.println("[PetRecorder] 写线程还在落盘，段尾由它写完后补上");
+        if (streamServer != null) streamServer.close();
+        stream.close();
+        janitor.shutdown(1000);
+    }
+
+    // 统计写出的字节数（按大小分段）和 CRC32（段尾）
+    private static final class CountingStream extends FilterOutputStream {
+        final CRC32 crc = new CRC32();
+        long count;
+        CountingStream(OutputStream out) { super(out); }
+        @Override public void write(int b) throws IOException { out.write(b); crc.update(b); count++; }
+        @Override public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            crc.update(b, off, len);
+            count += len;
+        }
+    }
 }
@@ -0,0 +1,70 @@
+import java.util.Objects;
+
+/**
+ * 面板要显示的宠物状态（不可变）。DesktopPet 在 tick 里组装，和上一份不同才推给监听者；
+ * 数值按显示精度取整（秒、百分比、两位小数），所以“看起来没变”就不会推送。
+ */
+public final class PetStatus {
+
+    public final String  nextRemindLabel;     // 起来！/ 坐下！
+    public final int     elapsedActiveSec;    // 站/坐这一轮已累计的活跃秒数
+    public final int     progressPercent;
+    public final int     queuedReminders;     // 排队等弹出的提醒条数
+    public final long    idleGapSec;
+    public final boolean fullscreen;
+    public final boolean audioAvailable;
+    public final boolean audioActive;
+    public final int     audioLevelCenti;     // 音量 × 100
+    public final boolean userActive;
+
+    public PetStatus(String nextRemindLabel, int elapsedActiveSec, int progressPercent, int queuedReminders,
+                     long idleGapSec, boolean fullscreen, boolean audioAvailable, boolean audioActive,
+                     double audioLevel, boolean userActive) {
+        this.nextRemindLabel = nextRemindLabel;
+        this.elapsedActiveSec = elapsedActiveSec;
+        this.progressPercent = progressPercent;
+        this.queuedReminders = queuedReminders;
+        this.idleGapSec = idleGapSec;
+        this.fullscreen = fullscreen;
+        this.audioAvailable = audioAvailable;
+        this.audioActive = audioActive;
+        this.audioLevelCenti = (int) Math.round(audioLevel * 100);
+        this.userActive = userActive;
+    }
+
+    public String elapsedActiveHMS() {
+        int s = elapsedActiveSec;
+        return String.format("%02d:%02d:%02d", s / 3600, (s % 3600) / 60, s % 60);
+    }
+
+    /** 面板底部的详情行 */
+    public String detailLine() {
+        return String.format(
+            "最近输入: %ds | 全屏: %s | 音频: %s%s | 判定活跃: %s | 进度: %d%%",
+            idleGapSec,
+            fullscreen ? "✓" : "✗",
+            audioAvailable ? (audioActive ? "✓" : "✗") : "—",
+            audioAvailable ? String.format(" (rms=%.2f)", audioLevelCenti / 100.0) : "",
+            userActive ? "✓" : "✗",
+            progressPercent
+        );
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof PetStatus)) return false;
+        PetStatus s = (PetStatus) o;
+        return elapsedActiveSec == s.elapsedActiveSec && progressPercent == s.progressPercent
+                && queuedReminders == s.queuedReminders && idleGapSec == s.idleGapSec
+                && fullscreen == s.fullscreen && audioAvailable == s.audioAvailable
+                && audioActive == s.audioActive && audioLevelCenti == s.audioLevelCenti
+                && userActive == s.userActive && Objects.equals(nextRemindLabel, s.nextRemindLabel);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(nextRemindLabel, elapsedActiveSec, progressPercent, queuedReminders, idleGapSec,
+                fullscreen, audioAvailable, audioActive, audioLevelCenti, userActive);
+    }
+}
@@ -0,0 +1,285 @@
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * 健康提醒调度：时间基准是“累计活跃时间”（单调时钟，只在用户活跃时前进），
+ * 不再按 tick 计数（Timer 在负载下掉帧时旧做法会走慢）。
+ *
+ * 到期判断用分层时间轮：4 层 × 64 槽，最细 1 秒，覆盖约 194 天的活跃时间。
+ * 每 tick 只比较一次累计时间和轮子的当前格，跨过一秒才转一格，代价与提醒个数无关；
+ * 上层格子每 64 格下沉一次（均摊 O(1)）。
+ *
+ * 到期的提醒进等待队列（优先级高的先弹，同级先到期的先弹），用户点掉气泡（acknowledge）
+ * 后才从当前累计时间重新开始计时——等待点击期间这一条不计时，其它提醒照常。
+ * 只在 tick 线程（EDT）上使用。
+ */
+public final class ReminderScheduler {
+
+    public static final String STAND = "stand";
+    public static final String WATER = "water";
+    public static final String EYE   = "eye";
+
+    private static final long RES_MS = 1000;           // 时间轮一格
+    private static final int  BITS = 6, SLOTS = 1 << BITS, MASK = SLOTS - 1, LEVELS = 4;
+    private static final long MAX_STEP_MS = 5000;     // 单 tick 最多计入这么多（卡顿/休眠不算活跃）
+
+    /** 一种提醒。texts 多于一条时每次确认后轮换（站/坐交替） */
+    public static final class Reminder {
+        public final String id;
+        private final String[] labels;
+        private final String[] texts;
+        private final int priority;
+        private long intervalMs;
+        private boolean enabled = true;
+        private int phase = 0;
+        private long armedAtMs;          // 开始计时时的累计活跃时间
+        private Entry entry;             // 轮子上的挂载（null：等待点击或已停用）
+        private boolean pending;         // 已到期，在队列里或正在显示
+        private long dueAtMs;
+
+        Reminder(String id, String[] labels, String[] texts, long intervalMs, int priority) {
+            this.id = id;
+            this.labels = labels;
+            this.texts = texts;
+            this.intervalMs = Math.max(RES_MS, intervalMs);
+            this.priority = priority;
+        }
+
+        public String  label()      { return labels[phase % labels.length]; }
+        public String  text()       { return texts[phase % texts.length]; }
+        public int     phase()      { return phase; }
+        public int     priority()   { return priority; }
+        public long    intervalMs() { return intervalMs; }
+        public boolean isEnabled()  { return enabled; }
+        public boolean isPending()  { return pending; }
+    }
+
+    private static final class Entry {
+        final Reminder r;
+        final long deadlineTick;
+        boolean cancelled;
+        Entry next;
+
+        Entry(Reminder r, long deadlineTick) { this.r = r; this.deadlineTick = deadlineTick; }
+    }
+
+    private final Entry[][] wheel = new Entry[LEVELS][SLOTS];
+    private final Map<String, Reminder> reminders = new LinkedHashMap<>();
+    private final PriorityQueue<Reminder> queue = new PriorityQueue<>((a, b) ->
+            a.priority != b.priority ? Integer.compare(b.priority, a.priority) : Long.compare(a.dueAtMs, b.dueAtMs));
+
+    private long activeMs = 0;          // 累计活跃时间
+    private long wheelTick = 0;         // 已处理到的格（≤ activeMs / RES_MS）
+    private long lastNanos = Long.MIN_VALUE;
+    private boolean enabled = true;
+    private long modCount = 0;          // 除时间流逝外的状态变化计数（持久化判断用）
+
+    /**
+     * 内置三种；分钟数可用 -Dpet.remind.stand.min / water.min / eye.min 覆盖。
+     * 护眼和喝水默认关着（老用户原来只有站/坐），在面板上勾选才打开。
+     */
+    public static ReminderScheduler withDefaults(int standMinutes) {
+        ReminderScheduler s = new ReminderScheduler();
+        s.add(new Reminder(STAND, new String[] { "起来！", "坐下！" },
+                new String[] { "起来！活动一下~", "坐下！歇一会儿~" },
+                minutesProp("pet.remind.stand.min", standMinutes), 2));
+        s.add(new Reminder(EYE, new String[] { "护眼" },
+                new String[] { "看看 6 米外，20 秒~" },
+                minutesProp("pet.remind.eye.min", 20), 3));
+        s.add(new Reminder(WATER, new String[] { "喝水" },
+                new String[] { "喝口水吧~" },
+                minutesProp("pet.remind.water.min", 45), 1));
+        s.setEnabled(EYE, false);
+        s.setEnabled(WATER, false);
+        return s;
+    }
+
+    private static long minutesProp(String key, int def) {
+        String v = System.getProperty(key);
+        if (v != null) {
+            try {
+                return Math.round(Double.parseDouble(v.trim()) * 60_000);
+            } catch (NumberFormatException e) {
+                System.err.println("[ReminderScheduler] 配置无效 " + key + "=" + v);
+            }
+        }
+        return def * 60_000L;
+    }
+
+    /** 自定义提醒；同 id 会替换旧的 */
+    public Reminder addCustom(String id, String text, long intervalMs, int priority) {
+        Reminder r = new Reminder(id, new String[] { text }, new String[] { text }, intervalMs, priority);
+        add(r);
+        return r;
+    }
+
+    private void add(Reminder r) {
+        remove(r.id);
+        reminders.put(r.id, r);
+        arm(r);
+        modCount++;
+    }
+
+    public void remove(String id) {
+        Reminder r = reminders.remove(id);
+        if (r != null) { disarm(r); modCount++; }
+    }
+
+    public Reminder get(String id) { return reminders.get(id); }
+
+    public List<Reminder> all() { return new ArrayList<>(reminders.values()); }
+
+    // ===== 每 tick =====
+
+    /** 推进累计活跃时间并转动时间轮；不活跃或整体关闭时只更新时钟 */
+    public void tick(long nowNanos, boolean userActive) {
+        if (lastNanos == Long.MIN_VALUE) { lastNanos = nowNanos; return; }
+        long dtMs = (nowNanos - lastNanos) / 1_000_000;
+        lastNanos += dtMs * 1_000_000;          // 不足 1ms 的零头留给下一 tick，不会一帧帧丢掉
+        if (!enabled || !userActive || dtMs <= 0) return;
+        activeMs += Math.min(dtMs, MAX_STEP_MS);
+        long target = activeMs / RES_MS;
+        while (wheelTick < target) step(++wheelTick);
+    }
+
+    private void step(long t) {
+        // 低层转满一圈时把上一层对应格下沉
+        int level = 0;
+        long idx = t;
+        while (level < LEVELS - 1 && (idx & MASK) == 0) {
+            idx >>>= BITS;
+            level++;
+            cascade(level, (int) (idx & MASK));
+        }
+        Entry e = wheel[0][(int) (t & MASK)];
+        wheel[0][(int) (t & MASK)] = null;
+        for (; e != null; e = e.next) {
+            if (!e.cancelled) fire(e.r);
+        }
+    }
+
+    private void cascade(int level, int slot) {
+        Entry e = wheel[level][slot];
+        wheel[level][slot] = null;
+        while (e != null) {
+            Entry next = e.next;
+            if (!e.cancelled) insert(e);
+            e = next;
+        }
+    }
+
+    private void insert(Entry e) {
+        long delta = e.deadlineTick - wheelTick;
+        if (delta <= 0) { fire(e.r); return; }
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= (1L << (BITS * (level + 1)))) level++;
+        int slot = (int) ((e.deadlineTick >>> (BITS * level)) & MASK);
+        e.next = wheel[level][slot];
+        wheel[level][slot] = e;
+    }
+
+    private void fire(Reminder r) {
+        r.entry = null;
+        r.pending = true;
+        r.dueAtMs = activeMs;
+        queue.add(r);
+        modCount++;
+    }
+
+    private void arm(Reminder r) { arm(r, activeMs); }
+
+    private void arm(Reminder r, long armedAtMs) {
+        if (r.entry != null) r.entry.cancelled = true;
+        r.entry = null;
+        r.armedAtMs = armedAtMs;
+        if (!r.enabled) return;
+        long deadlineTick = (armedAtMs + r.intervalMs + RES_MS - 1) / RES_MS;
+        long max = wheelTick + (1L << (BITS * LEVELS)) - 1;
+        r.entry = new Entry(r, Math.min(deadlineTick, max));
+        insert(r.entry);
+    }
+
+    private void disarm(Reminder r) {
+        if (r.entry != null) { r.entry.cancelled = true; r.entry = null; }
+        if (r.pending) { queue.remove(r); r.pending = false; }
+    }
+
+    // ===== 气泡队列 =====
+
+    /**
+     * 取出下一条要显示的提醒（没有返回 null）；取出后仍算 pending，直到 acknowledge。
+     * 整体关闭时也返回 null，已经排队的留到重新打开再弹
+     */
+    public Reminder pollDue() { return enabled ? queue.poll() : null; }
+
+    public int queuedCount() { return queue.size(); }
+
+    /** 用户点掉了这条提醒：轮换文案，从当前累计时间重新计时 */
+    public void acknowledge(Reminder r) {
+        if (r == null || reminders.get(r.id) != r) return;
+        r.pending = false;
+        r.phase++;
+        arm(r);
+        modCount++;
+    }
+
+    // ===== 设置 =====
+
+    public void setEnabled(boolean on) { if (enabled != on) { enabled = on; modCount++; } }
+    public boolean isEnabled() { return enabled; }
+
+    public void setEnabled(String id, boolean on) {
+        Reminder r = reminders.get(id);
+        if (r == null || r.enabled == on) return;
+        r.enabled = on;
+        if (on) arm(r); else disarm(r);
+        modCount++;
+    }
+
+    public void setInterval(String id, long intervalMs) {
+        Reminder r = reminders.get(id);
+        if (r == null) return;
+        r.intervalMs = Math.max(RES_MS, intervalMs);
+        if (!r.pending) arm(r, r.armedAtMs);
+        modCount++;
+    }
+
+    /** 清空队列，所有提醒从现在重新计时（站/坐从“起来”开始） */
+    public void resetAll() {
+        queue.clear();
+        for (Reminder r : reminders.values()) {
+            r.pending = false;
+            r.phase = 0;
+            arm(r);
+        }
+        modCount++;
+    }
+
+    /** 恢复上次保存的进度（见 ReminderStore）；未知 id 忽略。上次正等着点的提醒直接重新进队列 */
+    public void restore(String id, long elapsedMs, int phase, boolean on, boolean pending) {
+        Reminder r = reminders.get(id);
+        if (r == null) return;
+        disarm(r);
+        r.phase = Math.max(0, phase);
+        r.enabled = on;
+        if (on && pending) fire(r);
+        else arm(r, activeMs - Math.max(0, Math.min(elapsedMs, r.intervalMs)));
+        modCount++;
+    }
+
+    // ===== 读取（面板用）=====
+
+    public long getActiveMs() { return activeMs; }
+    public long getModCount() { return modCount; }
+
+    /** 这条提醒本轮已累计的活跃时间；到期后停在 interval */
+    public long elapsedMs(String id) {
+        Reminder r = reminders.get(id);
+        if (r == null) return 0;
+        if (r.pending) return r.intervalMs;
+        return Math.min(r.intervalMs, activeMs - r.armedAtMs);
+    }
+}
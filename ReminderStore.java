@@ -0,0 +1,145 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * 健康提醒进度的持久化：固定布局的小二进制文件（大端）。
+ *
+ *   0  magic "PRM1"      4
+ *   4  version          int
+ *   8  savedWallMs      long
+ *   16 flags            int   bit0 = 健康提醒总开关
+ *   20 count            int
+ *   24 记录 × count，每条 32 字节：
+ *        id             16 字节 UTF-8，不足补 0（更长的 id 不保存）
+ *        elapsedMs      long  本轮已累计的活跃时间
+ *        phase          int   站/坐轮换到第几次
+ *        flags          int   bit0 = 启用，bit1 = 到期未点掉
+ *   末尾 CRC32          int   覆盖前面全部字节
+ *
+ * encode 只读调度器，在 EDT 上调用；write 做“写临时文件 → force → 原子改名”，在后台线程里跑。
+ * 退出时 writeFinal 同步写最后一份，之后还没轮到的后台 write 直接丢掉，不会用旧数据盖回去。
+ * 文件坏了或版本不对就当作没有，从头计时。
+ */
+public final class ReminderStore {
+
+    private static final int MAGIC = 0x50524D31;   // "PRM1"
+    private static final int VERSION = 1;
+    private static final int HEADER = 24;
+    private static final int ID_BYTES = 16;
+    private static final int RECORD = 32;
+    private static final int MAX_RECORDS = 64;
+
+    private final Path file;
+    private final Path tmp;
+    private boolean finished = false;              // writeFinal 之后不再接受 write（受 this 保护）
+
+    public ReminderStore(Path file) {
+        this.file = file;
+        this.tmp = file.resolveSibling(file.getFileName() + ".tmp");
+    }
+
+    /** -Dpet.state.dir 可改目录，默认 ./state */
+    public static ReminderStore defaultStore() {
+        return new ReminderStore(Paths.get(System.getProperty("pet.state.dir", "state"), "reminders.bin"));
+    }
+
+    public Path getFile() { return file; }
+
+    // ===== 编码 / 解码 =====
+
+    public static ByteBuffer encode(ReminderScheduler s) {
+        ByteBuffer b = ByteBuffer.allocate(HEADER + RECORD * MAX_RECORDS + 4);
+        b.putInt(MAGIC).putInt(VERSION).putLong(System.currentTimeMillis())
+         .putInt(s.isEnabled() ? 1 : 0).putInt(0);
+        int count = 0;
+        for (ReminderScheduler.Reminder r : s.all()) {
+            byte[] id = r.id.getBytes(StandardCharsets.UTF_8);
+            if (id.length > ID_BYTES || count == MAX_RECORDS) continue;
+            b.put(id).put(new byte[ID_BYTES - id.length]);
+            b.putLong(s.elapsedMs(r.id)).putInt(r.phase())
+             .putInt((r.isEnabled() ? 1 : 0) | (r.isPending() ? 2 : 0));
+            count++;
+        }
+        b.putInt(20, count);
+        CRC32 crc = new CRC32();
+        crc.update(b.array(), 0, b.position());
+        b.putInt((int) crc.getValue());
+        b.flip();
+        return b;
+    }
+
+    /** 把文件里的进度套到调度器上；成功返回 true */
+    public boolean restore(ReminderScheduler s) {
+        byte[] data;
+        try {
+            if (!Files.isRegularFile(file)) return false;
+            data = Files.readAllBytes(file);
+        } catch (IOException e) {
+            System.err.println("[ReminderStore] 读取失败 " + file + ": " + e);
+            return false;
+        }
+        ByteBuffer b = ByteBuffer.wrap(data);
+        if (data.length < HEADER + 4 || b.getInt(0) != MAGIC || b.getInt(4) != VERSION) return false;
+        int count = b.getInt(20);
+        int len = HEADER + RECORD * count;
+        if (count < 0 || count > MAX_RECORDS || data.length != len + 4) return false;
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, len);
+        if (b.getInt(len) != (int) crc.getValue()) {
+            System.err.println("[ReminderStore] 校验失败，忽略 " + file);
+            return false;
+        }
+        s.setEnabled((b.getInt(16) & 1) != 0);
+        for (int i = 0, off = HEADER; i < count; i++, off += RECORD) {
+            int n = 0;
+            while (n < ID_BYTES && data[off + n] != 0) n++;
+            String id = new String(data, off, n, StandardCharsets.UTF_8);
+            int flags = b.getInt(off + 28);
+            s.restore(id, b.getLong(off + 16), b.getInt(off + 24), (flags & 1) != 0, (flags & 2) != 0);
+        }
+        return true;
+    }
+
+    // ===== 写盘 =====
+
+    /** 临时文件写完 force，再原子替换；不支持原子改名的文件系统退回普通替换 */
+    public synchronized void write(ByteBuffer data) {
+        if (finished) return;
+        writeFile(data);
+    }
+
+    /** 退出时在调用线程上写最后一份；已排队的后台 write 晚到也不会覆盖它 */
+    public synchronized void writeFinal(ByteBuffer data) {
+        if (finished) return;
+        finished = true;
+        writeFile(data);
+    }
+
+    private void writeFile(ByteBuffer data) {
+        try {
+            Files.createDirectories(file.getParent());
+            try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer b = data.duplicate();
+                while (b.hasRemaining()) ch.write(b);
+                ch.force(true);
+            }
+            try {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            System.err.println("[ReminderStore] 写入失败 " + file + ": " + e);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+/**
+ * 本次会话的实时统计：各状态累计停留时间、状态转移计数矩阵、各事件计数。
+ * 全是按 ordinal 下标的原始类型数组，每次更新 O(1)、不分配对象、不读文件。
+ * 只在 tick 线程（EDT）上更新和读取。
+ */
+public final class SessionStats {
+
+    private final String[] stateNames;
+    private final int n;
+    private final long[] dwellNanos;
+    private final long[] transitions;   // n×n 展平：from * n + to
+    private final long[] eventCounts = new long[PetEvent.values().length];
+    private final long startNanos = System.nanoTime();
+
+    private int  current = -1;
+    private long enteredNanos;
+
+    public SessionStats(Enum<?>[] states) {
+        n = states.length;
+        stateNames = new String[n];
+        for (int i = 0; i < n; i++) stateNames[i] = states[i].name();
+        dwellNanos = new long[n];
+        transitions = new long[n * n];
+    }
+
+    /** 每 tick 报一次当前状态；状态变了才记一次转移并结算上一段停留 */
+    public void observe(int stateOrdinal, long nowNanos) {
+        if (stateOrdinal == current) return;
+        if (current >= 0) {
+            dwellNanos[current] += nowNanos - enteredNanos;
+            transitions[current * n + stateOrdinal]++;
+        }
+        current = stateOrdinal;
+        enteredNanos = nowNanos;
+    }
+
+    public void count(PetEvent ev) { eventCounts[ev.ordinal()]++; }
+
+    // ===== 读取（面板用）=====
+    public int stateCount() { return n; }
+    public String stateName(int i) { return stateNames[i]; }
+
+    /** 含当前这段还没结束的停留 */
+    public long dwellMillis(int stateOrdinal, long nowNanos) {
+        long d = dwellNanos[stateOrdinal];
+        if (stateOrdinal == current) d += nowNanos - enteredNanos;
+        return d / 1_000_000L;
+    }
+
+    public long transitions(int from, int to) { return transitions[from * n + to]; }
+    public long eventCount(PetEvent ev) { return eventCounts[ev.ordinal()]; }
+    public long sessionMillis(long nowNanos) { return (nowNanos - startNanos) / 1_000_000L; }
+}
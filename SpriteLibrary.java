@@ -0,0 +1,283 @@
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * 精灵素材库：从 sprites/manifest.txt 一次读入所有动画的帧列表，按清单解码缩放。
+ * 某个动画缺帧时沿着 fallback 链降级（比如 fall_wake → fall → drag → idle），不再整只宠物崩掉。
+ *
+ * 清单格式（UTF-8，# 开头为注释）：
+ *   anim &lt;动画名&gt;
+ *   frame &lt;相对 sprites 的路径&gt; &lt;宽&gt; &lt;高&gt; &lt;crc32&gt;
+ *   fallback &lt;动画名&gt; &lt;替代动画名&gt;
+ *
+ * 清单不存在时扫描目录并顺手生成；也可以手动重建：java -cp bin SpriteLibrary [sprites目录]
+ *
+ * 解码后按像素内容做哈希：grab/land/swing/*_wake 这类单帧目录经常是同一张图，
+ * 内容相同的帧跨动画共用同一张缩放好的图（同一个 ImageIcon），只占一份堆内存。
+ */
+public final class SpriteLibrary {
+
+    public static final String MANIFEST = "manifest.txt";
+
+    // 默认降级链：缺哪个动画就借用哪个（最终都落到 idle）
+    private static final String[][] DEFAULT_FALLBACKS = {
+        {"drag_wake_left",  "drag_left"},  {"drag_wake_right",  "drag_right"},
+        {"fall_wake_left",  "fall_left"},  {"fall_wake_right",  "fall_right"},
+        {"land_wake_left",  "land_left"},  {"land_wake_right",  "land_right"},
+        {"yawn_left",       "idle_left"},  {"yawn_right",       "idle_right"},
+        {"grab_left",       "climb_left"}, {"grab_right",       "climb_right"},
+        {"swing_left",      "ceiling_left"}, {"swing_right",    "ceiling_right"},
+        {"ceiling_left",    "climb_left"}, {"ceiling_right",    "climb_right"},
+        {"climb_left",      "idle_left"},  {"climb_right",      "idle_right"},
+        {"fall_left",       "drag_left"},  {"fall_right",       "drag_right"},
+        {"drag_left",       "idle_left"},  {"drag_right",       "idle_right"},
+        {"land_left",       "idle_left"},  {"land_right",       "idle_right"},
+        {"walk_left",       "idle_left"},  {"walk_right",       "idle_right"},
+        {"sleep",           "idle_right"}, {"wake",             "idle_right"},
+        {"idle_left",       "idle_right"}, {"idle_right",       "idle_left"},
+    };
+
+    // 清单中的一帧
+    private static final class FrameEntry {
+        final String path; final int w, h; final long crc;
+        FrameEntry(String path, int w, int h, long crc) { this.path = path; this.w = w; this.h = h; this.crc = crc; }
+    }
+
+    private final Path root;
+    private final int size;
+    private final Map<String, List<FrameEntry>> manifest;
+    private final Map<String, String> fallbacks;
+    private final Map<String, ImageIcon[]> decoded = new HashMap<>();
+    // 像素摘要 → 共享帧（跨动画去重）
+    private final Map<ByteBuffer, ImageIcon> shared = new HashMap<>();
+    private int frameCount = 0;
+
+    private SpriteLibrary(Path root, int size, Map<String, List<FrameEntry>> manifest, Map<String, String> fallbacks) {
+        this.root = root;
+        this.size = size;
+        this.manifest = manifest;
+        this.fallbacks = fallbacks;
+    }
+
+    /** 读清单加载；清单不存在则扫描目录并写出清单 */
+    public static SpriteLibrary load(Path root, int size) {
+        Path mf = root.resolve(MANIFEST);
+        if (!Files.isRegularFile(mf)) return rescan(root, size);
+        Map<String, List<FrameEntry>> anims = new LinkedHashMap<>();
+        Map<String, String> fb = new LinkedHashMap<>();
+        try {
+            List<FrameEntry> cur = null;
+            int lineNo = 0;
+            for (String line : Files.readAllLines(mf, StandardCharsets.UTF_8)) {
+                lineNo++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                String[] t = line.split("\\s+");
+                switch (t[0]) {
+                    case "anim":
+                        cur = anims.computeIfAbsent(t[1], k -> new ArrayList<>());
+                        break;
+                    case "frame":
+                        if (cur == null || t.length < 5) throw new IOException("bad frame line " + lineNo);
+                        cur.add(new FrameEntry(t[1], Integer.parseInt(t[2]), Integer.parseInt(t[3]), Long.parseLong(t[4], 16)));
+                        break;
+                    case "fallback":
+                        if (t.length >= 3) fb.put(t[1], t[2]);
+                        break;
+                    default:
+                        // 未知指令：忽略，方便以后扩展
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("[SpriteLibrary] 清单损坏，改为扫描目录: " + e);
+            return rescan(root, size);
+        }
+        return new SpriteLibrary(root, size, anims, fb);
+    }
+
+    /** 扫描 sprites 下每个子目录，重建清单（刷新素材时用） */
+    public static SpriteLibrary rescan(Path root, int size) {
+        Map<String, List<FrameEntry>> anims = scan(root);
+        Map<String, String> fb = new LinkedHashMap<>();
+        for (String[] f : DEFAULT_FALLBACKS) fb.put(f[0], f[1]);
+        try {
+            writeManifest(root.resolve(MANIFEST), anims, fb);
+        } catch (IOException e) {
+            System.err.println("[SpriteLibrary] 写清单失败: " + e);
+        }
+        return new SpriteLibrary(root, size, anims, fb);
+    }
+
+    /**
+     * 取某动画的帧；缺失时沿 fallback 链找替代。整条链都空时返回空数组（画布会跳过绘制）。
+     */
+    public ImageIcon[] frames(String anim) {
+        String name = anim;
+        for (int hop = 0; name != null && hop <= fallbacks.size(); hop++) {
+            ImageIcon[] arr = decode(name);
+            if (arr.length > 0) {
+                if (hop > 0) System.err.println("[SpriteLibrary] " + anim + " 缺帧，借用 " + name);
+                return arr;
+            }
+            name = fallbacks.get(name);
+        }
+        System.err.println("[SpriteLibrary] " + anim + " 及其降级链都没有可用帧");
+        return new ImageIcon[0];
+    }
+
+    // 解码 + 缩放到 size×size；同一动画只解码一次
+    private ImageIcon[] decode(String anim) {
+        ImageIcon[] cached = decoded.get(anim);
+        if (cached != null) return cached;
+
+        List<ImageIcon> icons = new ArrayList<>();
+        List<FrameEntry> list = manifest.get(anim);
+        if (list != null) {
+            for (FrameEntry fe : list) {
+                try {
+                    byte[] bytes = Files.readAllBytes(root.resolve(fe.path));
+                    if (crc(bytes) != fe.crc) {
+                        System.err.println("[SpriteLibrary] 清单已过期（" + fe.path + " 内容变了），建议点“刷新素材”");
+                    }
+                    BufferedImage bi = javax.imageio.ImageIO.read(new ByteArrayInputStream(bytes));
+                    if (bi == null) continue;
+                    icons.add(sharedIcon(bi));
+                    frameCount++;
+                } catch (IOException e) {
+                    System.err.println("[SpriteLibrary] 跳过 " + fe.path + ": " + e);
+                }
+            }
+        }
+        ImageIcon[] arr = icons.toArray(new ImageIcon[0]);
+        decoded.put(anim, arr);
+        return arr;
+    }
+
+    // 同内容帧复用：摘要命中就直接拿已缩放的那张，否则缩放一次并登记
+    private ImageIcon sharedIcon(BufferedImage bi) {
+        ByteBuffer key = pixelDigest(bi);
+        ImageIcon icon = shared.get(key);
+        if (icon != null) return icon;
+
+        // 经 ImageIcon 等待异步缩放完成，再画进独立的 ARGB 图
+        Image scaled = new ImageIcon(bi.getScaledInstance(size, size, Image.SCALE_SMOOTH)).getImage();
+        BufferedImage slot = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = slot.createGraphics();
+        g.drawImage(scaled, 0, 0, null);
+        g.dispose();
+        scaled.flush();
+
+        icon = new ImageIcon(slot);
+        shared.put(key, icon);
+        return icon;
+    }
+
+    // 解码后像素的 SHA-256（带宽高），与文件编码方式无关
+    private static ByteBuffer pixelDigest(BufferedImage bi) {
+        int w = bi.getWidth(), h = bi.getHeight();
+        int[] row = new int[w];
+        ByteBuffer bytes = ByteBuffer.allocate(w * 4);
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            md.update(ByteBuffer.allocate(8).putInt(w).putInt(h).array());
+            for (int y = 0; y < h; y++) {
+                bi.getRGB(0, y, w, 1, row, 0, w);
+                bytes.clear();
+                bytes.asIntBuffer().put(row);
+                md.update(bytes.array());
+            }
+            return ByteBuffer.wrap(md.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public int getFrameCount()       { return frameCount; }     // 各动画引用的帧总数
+    public int getUniqueFrameCount() { return shared.size(); }  // 去重后实际持有的图
+    public long getHeapBytes()       { return (long) shared.size() * size * size * 4; }
+
+    // 目录 → 帧列表（按文件名排序，仅 png）
+    private static Map<String, List<FrameEntry>> scan(Path root) {
+        Map<String, List<FrameEntry>> anims = new LinkedHashMap<>();
+        List<Path> dirs = new ArrayList<>();
+        try (Stream<Path> s = Files.list(root)) {
+            s.filter(Files::isDirectory).sorted().forEach(dirs::add);
+        } catch (IOException e) {
+            System.err.println("[SpriteLibrary] 无法列出 " + root + ": " + e);
+            return anims;
+        }
+        for (Path dir : dirs) {
+            List<FrameEntry> frames = new ArrayList<>();
+            List<Path> files = new ArrayList<>();
+            try (Stream<Path> s = Files.list(dir)) {
+                s.filter(p -> p.getFileName().toString().toLowerCase().endsWith(".png"))
+                 .sorted()
+                 .forEach(files::add);
+            } catch (IOException e) {
+                System.err.println("[SpriteLibrary] 无法列出 " + dir + ": " + e);
+                continue;
+            }
+            for (Path p : files) {
+                try {
+                    byte[] bytes = Files.readAllBytes(p);
+                    BufferedImage bi = javax.imageio.ImageIO.read(new ByteArrayInputStream(bytes));
+                    if (bi == null) continue;
+                    String rel = root.relativize(p).toString().replace('\\', '/');
+                    frames.add(new FrameEntry(rel, bi.getWidth(), bi.getHeight(), crc(bytes)));
+                } catch (IOException e) {
+                    System.err.println("[SpriteLibrary] 跳过 " + p + ": " + e);
+                }
+            }
+            anims.put(dir.getFileName().toString(), frames);
+        }
+        return anims;
+    }
+
+    private static void writeManifest(Path mf, Map<String, List<FrameEntry>> anims, Map<String, String> fb) throws IOException {
+        Path tmp = mf.resolveSibling(MANIFEST + ".tmp");
+        try (Writer w = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            w.write("# 自动生成：java -cp bin SpriteLibrary  （刷新素材时也会重建）\n");
+            for (Map.Entry<String, List<FrameEntry>> e : anims.entrySet()) {
+                w.write("anim " + e.getKey() + "\n");
+                for (FrameEntry fe : e.getValue()) {
+                    w.write("frame " + fe.path + " " + fe.w + " " + fe.h + " " + Long.toHexString(fe.crc) + "\n");
+                }
+            }
+            for (Map.Entry<String, String> e : fb.entrySet()) {
+                w.write("fallback " + e.getKey() + " " + e.getValue() + "\n");
+            }
+        }
+        Files.move(tmp, mf, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static long crc(byte[] bytes) {
+        CRC32 c = new CRC32();
+        c.update(bytes, 0, bytes.length);
+        return c.getValue();
+    }
+
+    // 重建清单
+    public static void main(String[] args) {
+        Path root = Paths.get(args.length > 0 ? args[0] : "sprites");
+        SpriteLibrary lib = rescan(root, DesktopPet.SIZE);
+        for (String anim : lib.manifest.keySet()) lib.frames(anim);
+        System.out.println("已写出 " + root.resolve(MANIFEST) + "（" + lib.manifest.size() + " 个动画，"
+                + lib.getFrameCount() + " 帧，去重后 " + lib.getUniqueFrameCount() + " 张）");
+    }
+}
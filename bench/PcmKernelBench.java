@@ -0,0 +1,142 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * PcmKernel 各实现的微基准（仓库没有构建工具，不引 JMH；这里按 JMH 的套路手写：
+ * 预热若干轮 → 测量若干轮 → 报告每次调用的平均耗时和吞吐，结果写进 sink 防止被优化掉）。
+ *
+ * 对比：
+ *   legacy  旧 AudioProbe 的写法：逐字节拼 short，只算 RMS
+ *   scalar  PcmKernel 标量版（ShortBuffer 视图，一趟算 RMS/峰值/过零率）
+ *   vector  PcmKernelVector（需要 --add-modules jdk.incubator.vector）
+ * 合成数据：正弦 + 噪声、纯静音、满幅方波；单声道 8kHz 250ms 窗口（4000 字节）和 64KB。
+ *
+ * 运行：bench\run_bench.bat
+ */
+public final class PcmKernelBench {
+
+    private static final int WARMUP_ROUNDS = 5, MEASURE_ROUNDS = 10;
+    private static final long ROUND_NANOS = 200_000_000L;   // 每轮约 200ms
+    private static volatile double sink;
+
+    interface Variant {
+        String name();
+        double run(ByteBuffer buf, int channels);
+    }
+
+    public static void main(String[] args) {
+        List<Variant> variants = new ArrayList<>();
+        variants.add(new Variant() {
+            public String name() { return "legacy"; }
+            public double run(ByteBuffer b, int ch) { return legacyRms(b.array(), b.remaining()); }
+        });
+        variants.add(kernel(PcmKernel.scalar()));
+        PcmKernel best = PcmKernel.best();
+        if (best != PcmKernel.scalar()) variants.add(kernel(best));
+        else System.out.println("（没加载到 PcmKernelVector，只比较标量）");
+
+        String[] shapes = {"sine+noise", "silence", "square"};
+        int[] sizes = {4000, 64 * 1024};
+        System.out.printf("%-12s %-8s %-14s %12s %12s%n", "数据", "字节", "实现", "ns/次", "MB/s");
+        for (String shape : shapes) {
+            for (int size : sizes) {
+                ByteBuffer buf = synth(shape, size, 1);
+                checkAgree(buf, 1);
+                for (Variant v : variants) {
+                    double ns = measure(v, buf, 1);
+                    System.out.printf("%-12s %-8d %-14s %12.0f %12.1f%n", shape, size, v.name(), ns, size / ns * 1e3);
+                }
+            }
+        }
+        // 立体声交错
+        ByteBuffer st = synth("sine+noise", 64 * 1024, 2);
+        checkAgree(st, 2);
+        for (Variant v : variants) {
+            double ns = measure(v, st, 2);
+            System.out.printf("%-12s %-8d %-14s %12.0f %12.1f%n", "stereo", st.remaining(), v.name(), ns, st.remaining() / ns * 1e3);
+        }
+    }
+
+    private static Variant kernel(PcmKernel k) {
+        PcmKernel.Result r = new PcmKernel.Result();
+        return new Variant() {
+            public String name() { return k.name(); }
+            public double run(ByteBuffer b, int ch) {
+                k.analyze(b, ch, r);
+                return r.rms + r.peak + r.zcr;
+            }
+        };
+    }
+
+    private static double measure(Variant v, ByteBuffer buf, int ch) {
+        for (int r = 0; r < WARMUP_ROUNDS; r++) round(v, buf, ch);
+        double best = Double.MAX_VALUE, total = 0;
+        for (int r = 0; r < MEASURE_ROUNDS; r++) {
+            double ns = round(v, buf, ch);
+            total += ns;
+            best = Math.min(best, ns);
+        }
+        return total / MEASURE_ROUNDS;
+    }
+
+    // 一轮：反复调用直到过了 ROUND_NANOS，返回平均每次纳秒
+    private static double round(Variant v, ByteBuffer buf, int ch) {
+        long ops = 0;
+        double acc = 0;
+        long t0 = System.nanoTime(), t;
+        do {
+            for (int i = 0; i < 64; i++) acc += v.run(buf, ch);
+            ops += 64;
+            t = System.nanoTime();
+        } while (t - t0 < ROUND_NANOS);
+        sink = acc;
+        return (double) (t - t0) / ops;
+    }
+
+    // 标量和向量的结果必须一致（RMS 容许浮点误差）
+    private static void checkAgree(ByteBuffer buf, int ch) {
+        PcmKernel.Result a = new PcmKernel.Result(), b = new PcmKernel.Result();
+        PcmKernel.scalar().analyze(buf, ch, a);
+        PcmKernel.best().analyze(buf, ch, b);
+        if (Math.abs(a.rms - b.rms) > 1e-6 * Math.max(1, a.rms) || a.peak != b.peak || a.zcr != b.zcr) {
+            throw new AssertionError("结果不一致: scalar rms=" + a.rms + " peak=" + a.peak + " zcr=" + a.zcr
+                    + " / " + PcmKernel.best().name() + " rms=" + b.rms + " peak=" + b.peak + " zcr=" + b.zcr);
+        }
+        double legacy = legacyRms(buf.array(), buf.remaining());
+        if (Math.abs(legacy - a.rms) > 1e-6 * Math.max(1, a.rms)) throw new AssertionError("legacy RMS 不一致");
+    }
+
+    private static ByteBuffer synth(String shape, int bytes, int channels) {
+        ByteBuffer b = ByteBuffer.allocate(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        Random rnd = new Random(42);
+        int n = bytes / 2;
+        for (int i = 0; i < n; i++) {
+            int frame = i / channels;
+            double v;
+            switch (shape) {
+                case "silence": v = 0; break;
+                case "square":  v = (frame / 20) % 2 == 0 ? 32767 : -32768; break;
+                default:        v = 12000 * Math.sin(2 * Math.PI * 440 * frame / 8000.0) + rnd.nextGaussian() * 800;
+            }
+            b.putShort((short) Math.max(-32768, Math.min(32767, Math.round(v))));
+        }
+        b.flip();
+        return b;
+    }
+
+    // 旧 AudioProbe 的循环（原样搬过来做基线）
+    private static double legacyRms(byte[] buf, int n) {
+        long sum = 0;
+        int samples = n / 2;
+        for (int i = 0; i < n; i += 2) {
+            int lo = buf[i] & 0xff;
+            int hi = buf[i + 1];
+            int v = (short) ((hi << 8) | lo);
+            sum += (long) v * v;
+        }
+        return Math.sqrt(sum / Math.max(1.0, samples));
+    }
+}
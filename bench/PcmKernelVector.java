@@ -0,0 +1,69 @@
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * PcmKernel 的 SIMD 版本（jdk.incubator.vector）。编译/运行都需要
+ * --add-modules jdk.incubator.vector；主程序通过 PcmKernel.best() 反射加载，缺了就退回标量。
+ * 先把样本批量拷进复用的 short[]，再按 ShortVector 分块：
+ *   平方和：拆成 IntVector 相乘（单个平方不超过 2^30），再拆成 LongVector 累加
+ *   峰值：分别累计 max / min 向量
+ *   过零：x[i] ^ x[i+channels] 的符号位
+ * 尾部不足一个向量的部分走标量。
+ */
+public final class PcmKernelVector extends PcmKernel {
+
+    private static final VectorSpecies<Short> S = ShortVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Integer> I = IntVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Long> L = LongVector.SPECIES_PREFERRED;
+
+    private short[] scratch = new short[0];
+
+    @Override
+    public synchronized void analyze(ByteBuffer le16, int channels, Result out) {
+        int n = le16.remaining() / 2;
+        if (scratch.length < n) scratch = new short[n];
+        short[] a = scratch;
+        le16.duplicate().order(ByteOrder.LITTLE_ENDIAN).asShortBuffer().get(a, 0, n);
+
+        LongVector vsum = LongVector.zero(L);
+        ShortVector vmax = ShortVector.zero(S), vmin = ShortVector.zero(S);
+        int crossings = 0;
+        int lanes = S.length();
+        int i = 0;
+        int bound = S.loopBound(n - channels);     // 向量段要能读到 i + channels
+        for (; i < bound; i += lanes) {
+            ShortVector v = ShortVector.fromArray(S, a, i);
+            ShortVector next = ShortVector.fromArray(S, a, i + channels);
+            vmax = vmax.max(v);
+            vmin = vmin.min(v);
+            crossings += v.lanewise(VectorOperators.XOR, next).compare(VectorOperators.LT, (short) 0).trueCount();
+            for (int part = 0; part < lanes / I.length(); part++) {
+                IntVector w = (IntVector) v.convertShape(VectorOperators.S2I, I, part);
+                IntVector sq = w.mul(w);
+                for (int lp = 0; lp < I.length() / L.length(); lp++) {
+                    vsum = vsum.add((LongVector) sq.convertShape(VectorOperators.I2L, L, lp));
+                }
+            }
+        }
+        long sum = vsum.reduceLanes(VectorOperators.ADD);
+        int max = vmax.reduceLanes(VectorOperators.MAX);
+        int min = vmin.reduceLanes(VectorOperators.MIN);
+        // 向量段算的是 [0, i) 与其后 channels 个样本的比较；这里补齐剩下的部分
+        for (int k = i; k < n; k++) {
+            int v = a[k];
+            sum += v * v;
+            if (v > max) max = v;
+            if (v < min) min = v;
+            if (k + channels < n && ((v ^ a[k + channels]) < 0)) crossings++;
+        }
+        fill(out, sum, max, min, crossings, n, channels);
+    }
+
+    @Override public String name() { return "vector-" + S.vectorBitSize(); }
+}
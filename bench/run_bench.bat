@@ -0,0 +1,24 @@
+@echo off
+setlocal
+cd /d %~dp0..
+
+rem PcmKernel ׼legacy / scalar / vector ԱȣҪ jdk.incubator.vectorJDK 16+
+rem  PcmKernelVector.class Ҳ bin\ ʱ
+rem   --add-modules jdk.incubator.vector
+rem ͻԶ棨PcmKernel.best()ñ档
+
+if not exist bin mkdir bin
+
+echo [] javac --add-modules jdk.incubator.vector -d bin PcmKernel.java bench\PcmKernelVector.java bench\PcmKernelBench.java
+javac -encoding UTF-8 --add-modules jdk.incubator.vector -d bin PcmKernel.java bench\PcmKernelVector.java bench\PcmKernelBench.java
+if errorlevel 1 (
+  echo.
+  echo *** ʧܣĴϢ***
+  pause
+  exit /b 1
+)
+
+echo [] java --add-modules jdk.incubator.vector -cp bin PcmKernelBench
+java --add-modules jdk.incubator.vector -cp bin PcmKernelBench
+pause
+endlocal
@@ -0,0 +1,111 @@
+import java.awt.Rectangle;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * ActivityEngine 的自检（main，失败抛 AssertionError）。键鼠空闲用 IdleTimeProvider.Fake，
+ * 全屏/音频用一个可手动设置的来源代替（真的 Fullscreen 来源要有屏幕）；
+ * 全屏矩形的判定规则单独用 ForegroundWindowProvider.Fake 检查。
+ * 来源在 BackgroundScheduler 上按真实时间采样，所以每一步都等快照变化，最多等 3 秒。
+ *   - 键鼠空闲不超过门限算活跃；取不到空闲时间（-1）当作刚有输入
+ *   - 全屏 && 音频才算活跃；没有音频探测能力时全屏单独成立；两个开关关掉后不算
+ *   - 自定义来源的 impliesActive 一票即可
+ *   - stop() 之后不再更新快照
+ *   - 前台窗口盖满屏幕或工作区（±2 像素）算全屏，差 3 像素或取不到不算
+ *
+ * 运行：checks\run_checks.bat
+ */
+public final class ActivityEngineCheck {
+
+    private static final long IDLE_LIMIT_MS = 60_000;
+    private static final long WAIT_MS = 3000;
+
+    /** 手动设置的全屏/音频/自定义投票 */
+    private static final class Manual implements ActivitySource {
+        volatile boolean fullscreen, audioAvail, audioActive, vote;
+
+        @Override public String name() { return "manual"; }
+        @Override public long periodMs() { return 50; }
+        @Override public void sample(Map<String, Object> out) {
+            out.put(KEY_FULLSCREEN, fullscreen);
+            out.put(KEY_AUDIO_AVAIL, audioAvail);
+            out.put(KEY_AUDIO_ACTIVE, audioActive);
+            out.put("manual.vote", vote);
+        }
+        @Override public boolean impliesActive(Map<String, Object> values) {
+            return Boolean.TRUE.equals(values.get("manual.vote"));
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        fullscreenRule();
+        IdleTimeProvider.Fake idle = new IdleTimeProvider.Fake(0);
+        Manual m = new Manual();
+        ActivityEngine e = new ActivityEngine(IDLE_LIMIT_MS);
+        e.addSource(new ActivitySource.InputIdle(idle));
+        e.addSource(m);
+        e.start();
+
+        await(e, s -> s.userActiveByInput() && s.userActive(), "刚有输入应算活跃");
+        idle.setIdleMillis(IDLE_LIMIT_MS + 1);
+        await(e, s -> !s.userActive() && s.inputIdleMs() == IDLE_LIMIT_MS + 1, "空闲超过门限不算活跃");
+        idle.setIdleMillis(-1);
+        await(e, s -> s.userActiveByInput() && s.inputIdleMs() == 0, "取不到空闲时间当作刚有输入");
+        idle.setIdleMillis(10 * IDLE_LIMIT_MS);
+        await(e, s -> !s.userActive(), "回到空闲");
+
+        m.fullscreen = true;
+        m.audioAvail = true;
+        await(e, s -> s.fullscreen() && s.audioAvailable() && !s.userActive(), "全屏但没声音不算活跃");
+        m.audioActive = true;
+        await(e, s -> s.audioActive() && s.userActive(), "全屏 + 有声算活跃");
+        e.setUseAudio(false);
+        await(e, s -> !s.audioActive() && !s.userActive(), "关掉音频判定后不算");
+        m.audioAvail = false;
+        await(e, s -> !s.audioAvailable() && s.userActive(), "没有音频探测能力时全屏单独成立");
+        e.setUseFullscreen(false);
+        await(e, s -> !s.fullscreen() && !s.userActive(), "关掉全屏判定后不算");
+
+        m.vote = true;
+        await(e, s -> s.customActive() && s.userActive(), "自定义来源一票即可");
+        m.vote = false;
+        await(e, s -> !s.customActive() && !s.userActive(), "撤回投票");
+
+        e.stop();
+        Thread.sleep(200);                              // 已经排上的那一次采样跑完
+        ActivitySnapshot frozen = e.snapshot();
+        idle.setIdleMillis(0);
+        Thread.sleep(500);
+        check(e.snapshot() == frozen, "stop() 之后快照不该再变");
+
+        System.out.println("ActivityEngineCheck OK");
+    }
+
+    private static void fullscreenRule() {
+        Rectangle screen = new Rectangle(0, 0, 1920, 1080);
+        Rectangle work = new Rectangle(0, 0, 1920, 1040);
+        ForegroundWindowProvider.Fake fg = new ForegroundWindowProvider.Fake(null);
+        check(!ForegroundWindowProvider.isFullscreen(fg.foregroundBounds(), screen, work), "取不到前台窗口不算全屏");
+        fg.setBounds(new Rectangle(-2, 0, 1922, 1082));
+        check(ForegroundWindowProvider.isFullscreen(fg.foregroundBounds(), screen, work), "盖满屏幕（误差 2）算全屏");
+        fg.setBounds(new Rectangle(0, 0, 1920, 1040));
+        check(ForegroundWindowProvider.isFullscreen(fg.foregroundBounds(), screen, work), "盖满工作区（最大化）算全屏");
+        fg.setBounds(new Rectangle(3, 0, 1920, 1080));
+        check(!ForegroundWindowProvider.isFullscreen(fg.foregroundBounds(), screen, work), "差 3 像素不算");
+        fg.setBounds(new Rectangle(1920, 0, 1920, 1080));
+        check(!ForegroundWindowProvider.isFullscreen(fg.foregroundBounds(), screen, work), "在另一块屏幕上不算");
+    }
+
+    private static void await(ActivityEngine e, Predicate<ActivitySnapshot> ok, String what)
+            throws InterruptedException {
+        long end = System.currentTimeMillis() + WAIT_MS;
+        while (!ok.test(e.snapshot())) {
+            if (System.currentTimeMillis() > end) throw new AssertionError(what + "（等了 " + WAIT_MS + "ms）");
+            Thread.sleep(20);
+        }
+    }
+
+    private static void check(boolean ok, String what) {
+        if (!ok) throw new AssertionError(what);
+    }
+}
@@ -0,0 +1,79 @@
+/**
+ * ActivityGate 的自检（main，失败抛 AssertionError），时间由检查自己给出：
+ *   - 持续有声：平滑值过 onLevel 后再等 attackMs 才打开
+ *   - 在 offLevel 和 onLevel 之间徘徊：关着的不打开，开着的不关（双门限不抖）
+ *   - 静音：平滑值跌破 offLevel 后还要保持 holdMs 才关
+ *   - 平滑按实际间隔衰减：10 × 100ms 和 1 × 1000ms 结果相同
+ * 默认参数：on 0.010、off 0.005、tau 500ms、attack 300ms、hold 5000ms。
+ *
+ * 运行：checks\run_checks.bat
+ */
+public final class ActivityGateCheck {
+
+    private static final long STEP = 50;
+
+    public static void main(String[] args) {
+        ActivityGate.Params p = new ActivityGate.Params();
+        ActivityGate g = new ActivityGate(p);
+        long t = 0;
+
+        t = feed(g, t, 0.0, 2000);
+        check(!g.isActive(), "静音不该打开");
+
+        t = feed(g, t, 0.008, 20_000);
+        check(!g.isActive() && g.getTransitions() == 0, "低于 onLevel 的声音不该打开");
+
+        // 从 0.008 升到 0.05：平滑值几十毫秒就过 0.010，再等 attack 300ms
+        long onset = t;
+        long opened = -1;
+        while (t - onset < 2000) {
+            t += STEP;
+            g.update(0.05, t);
+            if (g.isActive()) { opened = t - onset; break; }
+        }
+        check(opened >= p.attackMs && opened <= p.attackMs + 200, "应在 attack 后打开，实际 " + opened + "ms");
+
+        t = feed(g, t, 0.008, 20_000);
+        check(g.isActive() && g.getTransitions() == 1, "offLevel 之上徘徊不该关");
+
+        // 静音：平滑值从 0.008 衰减到 0.005 约 235ms，再保持 5000ms
+        long quiet = t;
+        long closed = -1;
+        while (t - quiet < 10_000) {
+            t += STEP;
+            g.update(0.0, t);
+            if (!g.isActive()) { closed = t - quiet; break; }
+        }
+        long below = Math.round(p.tauMs * Math.log(0.008 / p.offLevel));
+        // 从最后一个还在 offLevel 之上的采样算起，所以允许差一个采样间隔
+        check(closed >= below + p.holdMs - STEP && closed <= below + p.holdMs + STEP,
+                "应在 " + (below + p.holdMs) + "ms 左右关闭，实际 " + closed + "ms");
+        check(g.getTransitions() == 2, "开关各一次，实际 " + g.getTransitions());
+
+        // 采样间隔不均匀：平滑结果只取决于经过的时间
+        ActivityGate a = new ActivityGate(p), b = new ActivityGate(p);
+        a.update(0.0, 0);
+        b.update(0.0, 0);
+        for (int i = 1; i <= 10; i++) a.update(0.3, i * 100);
+        b.update(0.3, 1000);
+        // b 只在 1000ms 处看到一次 0.3，按整段间隔衰减；a 每 100ms 都看到 0.3：两者的 EMA 应一致
+        check(Math.abs(a.getSmoothed() - b.getSmoothed()) < 1e-12,
+                "按间隔衰减不一致: " + a.getSmoothed() + " / " + b.getSmoothed());
+
+        g.reset();
+        check(!g.isActive() && g.getSmoothed() == 0.0, "reset 后回到无声");
+        System.out.println("ActivityGateCheck OK");
+    }
+
+    private static long feed(ActivityGate g, long t, double level, long ms) {
+        for (long end = t + ms; t < end; ) {
+            t += STEP;
+            g.update(level, t);
+        }
+        return t;
+    }
+
+    private static void check(boolean ok, String what) {
+        if (!ok) throw new AssertionError(what);
+    }
+}
@@ -0,0 +1,93 @@
+/**
+ * EventFilter 的自检（main，失败抛 AssertionError）：级别门槛、每 N 条留 1 条的采样、
+ * 令牌桶的突发和持续速率，以及被拦下的计数。令牌桶部分按真实时间跑约 1.5 秒，速率留了余量。
+ *
+ * 运行：checks\run_checks.bat
+ */
+public final class EventFilterCheck {
+
+    public static void main(String[] args) throws InterruptedException {
+        levels();
+        sampling();
+        burst();
+        sustainedRate();
+        System.out.println("EventFilterCheck OK");
+    }
+
+    // 默认：不分级别全放行（ENTER_STATE 丢了 PetLogQuery 的停留时长就不准）
+    private static void levels() {
+        EventFilter f = new EventFilter();
+        check(admitted(f, PetEvent.SAY, 1000) == 1000, "INFO 事件默认应全部放行");
+        check(admitted(f, PetEvent.ENTER_STATE, 1000) == 1000, "DEBUG 的 ENTER_STATE 默认也应全部放行");
+        check(admitted(f, PetEvent.AI_DECISION_IDLE, 1000) == 1000, "DEBUG 的 AI 决策默认也应全部放行");
+        check(f.getFilteredTotal() == 0, "默认配置不该拦下任何事件");
+
+        f.setMinLevel(PetEvent.Level.INFO);
+        check(admitted(f, PetEvent.ENTER_STATE, 100) == 0, "门槛 INFO 时 DEBUG 事件应全部丢弃");
+        check(admitted(f, PetEvent.SAY, 100) == 100, "门槛 INFO 时 INFO 事件照常放行");
+
+        f.setLevel(PetEvent.ENTER_STATE, PetEvent.Level.INFO);
+        f.setRateLimit(PetEvent.ENTER_STATE, 0, 1);
+        check(admitted(f, PetEvent.ENTER_STATE, 100) == 100, "单独提到 INFO 且不限速后应全部放行");
+    }
+
+    // 每 10 条留 1 条，留下的是每轮第一条；改配置后从头数
+    private static void sampling() {
+        EventFilter f = new EventFilter();
+        f.setSampling(PetEvent.SAY, 10);
+        long before = f.getFilteredCount(PetEvent.SAY);
+        int kept = 0;
+        for (int i = 0; i < 100; i++) {
+            boolean ok = f.admit(PetEvent.SAY);
+            if (ok) {
+                check(i % 10 == 0, "第 " + i + " 条不该留下");
+                kept++;
+            }
+        }
+        check(kept == 10, "每 10 条留 1 条，实际 " + kept);
+        check(f.getFilteredCount(PetEvent.SAY) - before == 90, "被采样拦下的应计 90 条");
+
+        f.admit(PetEvent.SAY);                          // 转到轮中间
+        f.setSampling(PetEvent.SAY, 4);
+        check(f.admit(PetEvent.SAY), "改配置后第一条应留下");
+        f.setSampling(PetEvent.SAY, 1);
+        check(admitted(f, PetEvent.SAY, 50) == 50, "every=1 等于关闭采样");
+    }
+
+    // 桶一开始是满的：连续调用只放行 burst 条；空闲再久也只攒回 burst 条
+    private static void burst() throws InterruptedException {
+        EventFilter f = new EventFilter();
+        f.setRateLimit(PetEvent.SAY, 50, 5);
+        int first = admitted(f, PetEvent.SAY, 200);
+        check(first >= 5 && first <= 6, "突发 5，实际放行 " + first);
+        Thread.sleep(300);                              // 能攒 15 个，但上限 5
+        int again = admitted(f, PetEvent.SAY, 200);
+        check(again >= 5 && again <= 6, "空闲后仍只有突发 5，实际放行 " + again);
+        check(f.getFilteredTotal() == 400 - first - again, "拦下的总数不对: " + f.getFilteredTotal());
+    }
+
+    // 持续 1 秒、每毫秒一条：放行数 ≈ 突发 + 速率
+    private static void sustainedRate() throws InterruptedException {
+        EventFilter f = new EventFilter();
+        f.setRateLimit(PetEvent.SAY, 100, 10);
+        long end = System.nanoTime() + 1_000_000_000L;
+        int kept = 0, tried = 0;
+        while (System.nanoTime() < end) {
+            if (f.admit(PetEvent.SAY)) kept++;
+            tried++;
+            Thread.sleep(1);
+        }
+        check(tried > 300, "机器太忙，只试了 " + tried + " 次，结果不可信");
+        check(kept >= 90 && kept <= 125, "100 条/秒 + 突发 10，1 秒放行 " + kept);
+    }
+
+    private static int admitted(EventFilter f, PetEvent ev, int n) {
+        int k = 0;
+        for (int i = 0; i < n; i++) if (f.admit(ev)) k++;
+        return k;
+    }
+
+    private static void check(boolean ok, String what) {
+        if (!ok) throw new AssertionError(what);
+    }
+}
@@ -0,0 +1,163 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * PetLogCodec 的自检（仓库没有测试框架，按 bench/ 的办法写成 main，失败抛 AssertionError）：
+ *   - 编码再解码逐字段一致，包括负的位移差、字典写满后的内联 detail
+ *   - 段尾的记录数/字节数/CRC 对得上时 valid，改掉一个字节就不 valid
+ *   - 没有段尾、最后一条只写了一半时报 torn，前面的记录照常读出
+ *   - toCsv 读 LogJanitor 压过的 .petlog.gz 和读原段结果一样，默认输出名去掉 .petlog(.gz)
+ *
+ * 运行：checks\run_checks.bat
+ */
+public final class PetLogCodecCheck {
+
+    private static final long START_WALL_MS = 1_755_500_000_000L;
+
+    public static void main(String[] args) throws IOException {
+        List<String[]> events = synth(6000);
+        byte[] body = encode(events);
+        byte[] withTrailer = trailer(body, events.size());
+
+        // 完整的段：逐条一致，段尾有效
+        PetLogCodec.Tail tail = new PetLogCodec.Tail();
+        List<String[]> back = decode(withTrailer, tail);
+        check(back.size() == events.size(), "条数 " + back.size() + " != " + events.size());
+        for (int i = 0; i < events.size(); i++) {
+            check(Arrays.equals(events.get(i), back.get(i)),
+                    "第 " + i + " 条不一致: " + Arrays.toString(events.get(i)) + " / " + Arrays.toString(back.get(i)));
+        }
+        check(tail.hasTrailer && tail.valid && !tail.torn, "段尾应当有效");
+        check(tail.declaredRecords == events.size(), "段尾记录数 " + tail.declaredRecords);
+
+        // 改掉中间一个字节（选 detail 字符串里的，不破坏记录结构）：CRC 对不上
+        byte[] corrupt = withTrailer.clone();
+        int at = indexOf(corrupt, "gap=".getBytes());
+        corrupt[at] = 'G';
+        tail = new PetLogCodec.Tail();
+        decode(corrupt, tail);
+        check(tail.hasTrailer && !tail.valid, "改过的段不该通过段尾校验");
+
+        // 崩溃留下的段：没有段尾，最后一条截掉一半
+        int cut = body.length - 2;
+        tail = new PetLogCodec.Tail();
+        back = decode(Arrays.copyOf(body, cut), tail);
+        check(!tail.hasTrailer && tail.torn, "截断的段应当报 torn");
+        check(back.size() == events.size() - 1, "截断后应读出前 " + (events.size() - 1) + " 条，实际 " + back.size());
+
+        // 正好停在记录边界：不 torn，也没有段尾
+        tail = new PetLogCodec.Tail();
+        back = decode(body, tail);
+        check(!tail.hasTrailer && !tail.torn && back.size() == events.size(), "无段尾的完整段");
+
+        gzipToCsv(withTrailer, events.size());
+
+        System.out.println("PetLogCodecCheck OK（" + events.size() + " 条，" + withTrailer.length + " 字节）");
+    }
+
+    // 列：uptime, tick, action, state, x, y, detail；detail 前 5000 个各不相同，会把字典写满
+    private static List<String[]> synth(int n) {
+        Random rnd = new Random(7);
+        String[] actions = {"ENTER_STATE", "AI_DECISION", "FACE", "SPEED", "SAY"};
+        String[] states = {"IDLE", "WALK", "CLIMB_LEFT", "CEILING", ""};
+        List<String[]> out = new ArrayList<>();
+        long uptime = 0;
+        int tick = 0, x = 500, y = 300;
+        for (int i = 0; i < n; i++) {
+            uptime += rnd.nextInt(200);
+            tick += rnd.nextInt(5);
+            x += rnd.nextInt(81) - 40;                 // 有正有负
+            y += rnd.nextInt(81) - 40;
+            String detail = i < 5000 ? "gap=" + i : (rnd.nextBoolean() ? "" : "说句话 " + (i % 7));
+            out.add(new String[] { String.valueOf(uptime), String.valueOf(tick), actions[rnd.nextInt(actions.length)],
+                    states[rnd.nextInt(states.length)], String.valueOf(x), String.valueOf(y), detail });
+        }
+        return out;
+    }
+
+    // 同一段分别存成 .petlog 和 .petlog.gz，转出来的 CSV 应逐字节相同
+    private static void gzipToCsv(byte[] segment, int records) throws IOException {
+        Path dir = Files.createTempDirectory("petlog-check");
+        try {
+            Path plain = dir.resolve("pet-1.petlog");
+            Path gz = dir.resolve("pet-2.petlog.gz");
+            Files.write(plain, segment);
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(gz))) {
+                out.write(segment);
+            }
+            check(PetLogCodec.csvPathFor(plain).equals(dir.resolve("pet-1.csv")), "x.petlog 应转成 x.csv");
+            check(PetLogCodec.csvPathFor(gz).equals(dir.resolve("pet-2.csv")), "x.petlog.gz 应转成 x.csv");
+            check(PetLogCodec.csvPathFor(Paths.get("a.petlog.gz.bak")).toString().equals("a.petlog.gz.bak.csv"),
+                    "只去掉结尾的 .petlog(.gz)");
+
+            Path a = dir.resolve("a.csv"), b = dir.resolve("b.csv");
+            check(PetLogCodec.toCsv(plain, a) == records, "原段转换条数不对");
+            check(PetLogCodec.toCsv(gz, b) == records, ".gz 段转换条数不对");
+            check(Arrays.equals(Files.readAllBytes(a), Files.readAllBytes(b)), ".gz 段转出的 CSV 和原段不同");
+            String first = new String(Files.readAllBytes(b), StandardCharsets.UTF_8).split("\n", 2)[0];
+            check(first.equals(PetLogCodec.CSV_HEADER), "CSV 表头不对: " + first);
+        } finally {
+            try (Stream<Path> files = Files.list(dir)) {
+                for (Path f : (Iterable<Path>) files::iterator) Files.deleteIfExists(f);
+            }
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    private static byte[] encode(List<String[]> events) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PetLogCodec.Encoder enc = new PetLogCodec.Encoder(bytes, START_WALL_MS);
+        for (String[] e : events) {
+            enc.write(Long.parseLong(e[0]), Integer.parseInt(e[1]), e[2], e[3],
+                    Integer.parseInt(e[4]), Integer.parseInt(e[5]), e[6]);
+        }
+        enc.flush();
+        return bytes.toByteArray();
+    }
+
+    // 和 PetRecorder.closeSegment 一样：段尾记下之前的字节数和 CRC
+    private static byte[] trailer(byte[] body, long records) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(body);
+        PetLogCodec.writeTrailer(out, records, body.length, (int) crc.getValue());
+        return out.toByteArray();
+    }
+
+    private static List<String[]> decode(byte[] file, PetLogCodec.Tail tail) throws IOException {
+        List<String[]> out = new ArrayList<>();
+        PetLogCodec.decode(new ByteArrayInputStream(file), (wallMs, uptimeMs, tick, action, state, x, y, detail) -> {
+            check(wallMs == START_WALL_MS + uptimeMs, "墙钟没有按 起始 + uptime 还原");
+            out.add(new String[] { String.valueOf(uptimeMs), String.valueOf(tick), action, state,
+                    String.valueOf(x), String.valueOf(y), detail });
+        }, tail);
+        return out;
+    }
+
+    private static int indexOf(byte[] hay, byte[] needle) {
+        outer:
+        for (int i = hay.length - needle.length; i >= 0; i--) {
+            for (int k = 0; k < needle.length; k++) if (hay[i + k] != needle[k]) continue outer;
+            return i;
+        }
+        throw new AssertionError("找不到 " + new String(needle));
+    }
+
+    private static void check(boolean ok, String what) {
+        if (!ok) throw new AssertionError(what);
+    }
+}
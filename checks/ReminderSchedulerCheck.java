@@ -0,0 +1,142 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * ReminderScheduler（分层时间轮）的自检（main，失败抛 AssertionError）：
+ *   - 各层边界（63/64/65 秒、4095/4096/4097 秒、第 3 层）上的提醒恰好在累计到间隔时到期，下沉不丢不早
+ *   - 随机一批提醒在随机确认的情况下，到期时刻和“确认时刻 + 间隔”一致
+ *   - 不活跃不计时，单 tick 最多计 5 秒，30 FPS 下亚毫秒零头不丢
+ *   - 同时到期按优先级出队；停用某类不再到期；整体关闭时 pollDue 返回 null
+ *   - withDefaults 只打开站/坐，护眼和喝水登记了但默认关着
+ * 时钟由检查自己给出（tick 的 nowNanos 参数），不用真实时间。
+ *
+ * 运行：checks\run_checks.bat
+ */
+public final class ReminderSchedulerCheck {
+
+    private static final long SEC = 1_000_000_000L;
+
+    public static void main(String[] args) {
+        levelBoundaries();
+        randomAcknowledge();
+        clock();
+        priorityAndSwitches();
+        defaults();
+        System.out.println("ReminderSchedulerCheck OK");
+    }
+
+    private static void levelBoundaries() {
+        long[] secs = {1, 2, 63, 64, 65, 127, 128, 4095, 4096, 4097, 5000, 262_143, 262_144, 262_145, 300_001};
+        ReminderScheduler s = new ReminderScheduler();
+        for (long k : secs) s.addCustom("r" + k, "t", k * 1000, 1);
+        Map<String, Long> due = new HashMap<>();
+        Clock c = new Clock(s);
+        while (due.size() < secs.length) {
+            c.advance(SEC, true);
+            check(s.getActiveMs() <= 300_001_000L, "有提醒没有到期: " + due.keySet());
+            for (ReminderScheduler.Reminder r; (r = s.pollDue()) != null; ) {
+                check(due.put(r.id, s.getActiveMs()) == null, r.id + " 到期了两次");
+            }
+        }
+        for (long k : secs) {
+            check(due.get("r" + k) == k * 1000, "r" + k + " 应在 " + k * 1000 + "ms 到期，实际 " + due.get("r" + k));
+        }
+    }
+
+    // 每条到期后随机隔几秒才确认；下次到期应是 确认时的累计时间 + 间隔（向上取整到秒）
+    private static void randomAcknowledge() {
+        Random rnd = new Random(11);
+        ReminderScheduler s = new ReminderScheduler();
+        Map<String, Long> expect = new HashMap<>();
+        List<ReminderScheduler.Reminder> showing = new ArrayList<>();
+        Map<ReminderScheduler.Reminder, Long> ackAt = new HashMap<>();
+        for (int i = 0; i < 300; i++) {
+            long ms = 1000 + rnd.nextInt(20_000_000);
+            s.addCustom("x" + i, "t", ms, rnd.nextInt(3));
+            expect.put("x" + i, ceilSec(ms));
+        }
+        Clock c = new Clock(s);
+        int fired = 0;
+        while (fired < 2000) {
+            c.advance(SEC, true);
+            long now = s.getActiveMs();
+            for (ReminderScheduler.Reminder r; (r = s.pollDue()) != null; ) {
+                check(now == expect.get(r.id), r.id + " 应在 " + expect.get(r.id) + " 到期，实际 " + now);
+                showing.add(r);
+                ackAt.put(r, now + 1000L * rnd.nextInt(30));
+                fired++;
+            }
+            for (int i = showing.size() - 1; i >= 0; i--) {
+                ReminderScheduler.Reminder r = showing.get(i);
+                if (ackAt.get(r) > now) continue;
+                check(s.elapsedMs(r.id) == r.intervalMs(), "等待点击期间应停在 interval");
+                s.acknowledge(r);
+                expect.put(r.id, ceilSec(now + r.intervalMs()));
+                showing.remove(i);
+            }
+        }
+    }
+
+    private static void clock() {
+        ReminderScheduler s = new ReminderScheduler();
+        Clock c = new Clock(s);
+        c.advance(10 * SEC, false);
+        check(s.getActiveMs() == 0, "不活跃不该计时");
+        c.advance(60 * SEC, true);
+        check(s.getActiveMs() == 5000, "单 tick 最多计 5 秒，实际 " + s.getActiveMs());
+
+        s = new ReminderScheduler();
+        c = new Clock(s);
+        for (int i = 0; i < 30 * 3600; i++) c.advance(33_333_333L, true);
+        check(Math.abs(s.getActiveMs() - 3_600_000L) <= 1, "30 FPS 跑 1 小时应计 3600000ms，实际 " + s.getActiveMs());
+    }
+
+    private static void priorityAndSwitches() {
+        ReminderScheduler s = new ReminderScheduler();
+        s.addCustom("low", "t", 10_000, 1);
+        s.addCustom("high", "t", 10_000, 5);
+        s.addCustom("off", "t", 5_000, 9);
+        s.setEnabled("off", false);
+        Clock c = new Clock(s);
+        for (int i = 0; i < 10; i++) c.advance(SEC, true);
+        check("high".equals(s.pollDue().id), "同时到期应先出优先级高的");
+        check("low".equals(s.pollDue().id), "然后是低的");
+        check(s.pollDue() == null, "停用的提醒不该到期");
+
+        s.setEnabled("off", true);                      // 从现在重新计时
+        for (int i = 0; i < 5; i++) c.advance(SEC, true);
+        s.setEnabled(false);
+        check(s.pollDue() == null && s.queuedCount() == 1, "整体关闭时不出队，已排队的留着");
+        s.setEnabled(true);
+        check("off".equals(s.pollDue().id), "重新打开后照常出队");
+    }
+
+    private static void defaults() {
+        ReminderScheduler s = ReminderScheduler.withDefaults(30);
+        check(s.get(ReminderScheduler.STAND).isEnabled(), "站/坐默认打开");
+        check(s.get(ReminderScheduler.EYE) != null && !s.get(ReminderScheduler.EYE).isEnabled(), "护眼默认关着");
+        check(s.get(ReminderScheduler.WATER) != null && !s.get(ReminderScheduler.WATER).isEnabled(), "喝水默认关着");
+        Clock c = new Clock(s);
+        for (int i = 0; i < 30 * 60; i++) c.advance(SEC, true);
+        check(ReminderScheduler.STAND.equals(s.pollDue().id) && s.pollDue() == null, "30 分钟内只有站/坐到期");
+        s.setEnabled(ReminderScheduler.EYE, true);      // 面板勾选：从现在开始计时
+        for (int i = 0; i < 20 * 60; i++) c.advance(SEC, true);
+        check(ReminderScheduler.EYE.equals(s.pollDue().id), "勾选护眼后 20 分钟到期");
+    }
+
+    private static long ceilSec(long ms) { return (ms + 999) / 1000 * 1000; }
+
+    private static final class Clock {
+        final ReminderScheduler s;
+        long nanos = 123_456_789L;
+        Clock(ReminderScheduler s) { this.s = s; s.tick(nanos, false); }
+        void advance(long dn, boolean active) { nanos += dn; s.tick(nanos, active); }
+    }
+
+    private static void check(boolean ok, String what) {
+        if (!ok) throw new AssertionError(what);
+    }
+}
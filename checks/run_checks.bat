@@ -0,0 +1,29 @@
+@echo off
+setlocal
+cd /d %~dp0..
+
+rem ߼ֵԼ죨ֿⲻòԿܣÿ *Check һ mainʧ AssertionError ط 0
+rem ֻ checks\ µļõ -sourcepath . Զһ
+
+if not exist bin mkdir bin
+
+echo [] javac -sourcepath . -d bin checks\*.java
+javac -encoding UTF-8 -cp lib\jna.jar;lib\jna-platform.jar -sourcepath . -d bin checks\*.java
+if errorlevel 1 goto :fail
+
+for %%c in (PetLogCodecCheck EventFilterCheck ReminderSchedulerCheck ActivityGateCheck ActivityEngineCheck) do (
+  echo [] %%c
+  java -ea -cp bin;lib\jna.jar;lib\jna-platform.jar %%c
+  if errorlevel 1 goto :fail
+)
+echo.
+echo ȫͨ
+pause
+endlocal
+exit /b 0
+
+:fail
+echo.
+echo *** ԼʧܣĴϢ***
+pause
+exit /b 1
@@ -6,8 +6,8 @@ if not exist bin mkdir bin
 if not exist lib mkdir lib
 echo  jna.jar  jna-platform.jar ŵ lib\ Ŀ¼
 
-echo [] javac -encoding UTF-8 -cp lib\jna.jar;lib\jna-platform.jar -d bin PetRecorder.java DesktopPet.java PetControlPanel.java
-javac -encoding UTF-8 -cp lib\jna.jar;lib\jna-platform.jar -d bin PetRecorder.java DesktopPet.java PetControlPanel.java
+echo [] javac -encoding UTF-8 -cp lib\jna.jar;lib\jna-platform.jar -d bin PetRecorder.java DesktopPet.java PetControlPanel.java SpriteLibrary.java BubbleRenderer.java PetLogCodec.java LogJanitor.java PetEvent.java PetLogQuery.java SessionStats.java EventFilter.java LogStream.java LogStreamServer.java BackgroundScheduler.java IdleTimeProvider.java ForegroundWindowProvider.java AudioActivityDetector.java PcmKernel.java ActivityGate.java ActivitySource.java ActivitySnapshot.java ActivityEngine.java ReminderScheduler.java ReminderStore.java ActivityStats.java ActivityChart.java PetStatus.java PerfMonitor.java PetControlServer.java
+javac -encoding UTF-8 -cp lib\jna.jar;lib\jna-platform.jar -d bin PetRecorder.java DesktopPet.java PetControlPanel.java SpriteLibrary.java BubbleRenderer.java PetLogCodec.java LogJanitor.java PetEvent.java PetLogQuery.java SessionStats.java EventFilter.java LogStream.java LogStreamServer.java BackgroundScheduler.java IdleTimeProvider.java ForegroundWindowProvider.java AudioActivityDetector.java PcmKernel.java ActivityGate.java ActivitySource.java ActivitySnapshot.java ActivityEngine.java ReminderScheduler.java ReminderStore.java ActivityStats.java ActivityChart.java PetStatus.java PerfMonitor.java PetControlServer.java
 if errorlevel 1 (
   echo.
   echo *** ʧܣĴϢ***